@@ -0,0 +1,50 @@
+package tinyrs.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tinyrs.utils.AppletUtility;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class AppletUtilityBenchmark {
+
+    @Param({ "16384", "1048576" })
+    private int paddingLength;
+    private String pageSource;
+    private byte[] pageBytes;
+
+    @Setup
+    public void setUp() throws UnsupportedEncodingException {
+        pageSource = Fixtures.appletPage(40, paddingLength);
+        pageBytes = pageSource.getBytes("ISO-8859-1");
+    }
+
+    @Benchmark
+    public Map<String, String> parseParameters() throws UnsupportedEncodingException {
+        return AppletUtility.parseParameters(new String(pageBytes, "ISO-8859-1"));
+    }
+
+    @Benchmark
+    public Map<String, String> readParameters() throws IOException {
+        return AppletUtility.readParameters(new ByteArrayInputStream(pageBytes));
+    }
+}
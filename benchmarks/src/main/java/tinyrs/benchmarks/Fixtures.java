@@ -0,0 +1,95 @@
+package tinyrs.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import tinyrs.GlobalProperty;
+
+final class Fixtures {
+
+    static final byte[] REVISION_NUMBER_PATTERN = { 17, 2, -3, 17, 1, -9, 17 };
+    static final int REVISION = 180;
+    private static final long SEED = 0x74696e7972734cL;
+
+    private Fixtures() {
+    }
+
+    static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(SEED).nextBytes(bytes);
+        return bytes;
+    }
+
+    static byte[] classBytes(final int length) {
+        final byte[] bytes = randomBytes(length);
+        for (int i = 0; i + REVISION_NUMBER_PATTERN.length < bytes.length; i++) {
+            if (bytes[i] == REVISION_NUMBER_PATTERN[0]) {
+                bytes[i] = 0;
+            }
+        }
+        final int patternIndex = length - REVISION_NUMBER_PATTERN.length - 16;
+        System.arraycopy(REVISION_NUMBER_PATTERN, 0, bytes, patternIndex, REVISION_NUMBER_PATTERN.length);
+        bytes[patternIndex + REVISION_NUMBER_PATTERN.length] = (byte) (REVISION >> 8);
+        bytes[patternIndex + REVISION_NUMBER_PATTERN.length + 1] = (byte) REVISION;
+        return bytes;
+    }
+
+    static File gamepack(final int classCount, final int classSize) throws IOException {
+        final File gamepackFile = File.createTempFile("gamepack", ".jar");
+        gamepackFile.deleteOnExit();
+        final Random random = new Random(SEED);
+        final JarOutputStream jarStream = new JarOutputStream(new FileOutputStream(gamepackFile));
+        try {
+            final byte[] otherClassBytes = new byte[classSize];
+            for (int i = 0; i < classCount; i++) {
+                random.nextBytes(otherClassBytes);
+                jarStream.putNextEntry(new JarEntry("c" + i + ".class"));
+                jarStream.write(otherClassBytes);
+                jarStream.closeEntry();
+            }
+            jarStream.putNextEntry(new JarEntry("client.class"));
+            jarStream.write(classBytes(classSize * 8));
+            jarStream.closeEntry();
+        } finally {
+            jarStream.close();
+        }
+        return gamepackFile;
+    }
+
+    static String appletPage(final int parameterCount, final int paddingLength) {
+        final Random random = new Random(SEED);
+        final StringBuilder page = new StringBuilder("<html><head><title>Old School RuneScape</title>");
+        page.append("<script type=\"text/javascript\">");
+        while (page.length() < paddingLength) {
+            page.append("var v").append(random.nextInt(100000)).append(" = ").append(random.nextLong()).append(";\n");
+        }
+        page.append("</script></head><body><applet name=\"game\" archive=\"gamepack.jar\" code=\"client.class\">\n");
+        for (int i = 0; i < parameterCount; i++) {
+            page.append("<param name=\"").append(i).append("\" value=\"").append(random.nextLong()).append("\">\n");
+        }
+        page.append("</applet>");
+        while (page.length() < 2 * paddingLength) {
+            page.append("<div class=\"footer\">").append(random.nextLong()).append("</div>\n");
+        }
+        return page.append("</body></html>").toString();
+    }
+
+    static byte[] propertyFile(final int repetitions) {
+        final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        final StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < repetitions; i++) {
+            lines.append("# Saved properties, copy ").append(i).append('\n');
+            for (final GlobalProperty property : GlobalProperty.values()) {
+                lines.append(property.name()).append('=').append(property.getDefault()).append('\n');
+            }
+        }
+        final byte[] lineBytes = lines.toString().getBytes();
+        byteStream.write(lineBytes, 0, lineBytes.length);
+        return byteStream.toByteArray();
+    }
+}
@@ -0,0 +1,48 @@
+package tinyrs.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tinyrs.GlobalProperty;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class GlobalPropertyBenchmark {
+
+    @Param({ "1", "1000" })
+    private int repetitions;
+    private byte[] propertyBytes;
+
+    @Setup
+    public void setUp() {
+        propertyBytes = Fixtures.propertyFile(repetitions);
+    }
+
+    @Benchmark
+    public void readAll() {
+        GlobalProperty.readAll(new ByteArrayInputStream(propertyBytes));
+    }
+
+    @Benchmark
+    public int writeAll() {
+        final ByteArrayOutputStream byteStream = new ByteArrayOutputStream(1024);
+        GlobalProperty.writeAll(byteStream);
+        return byteStream.size();
+    }
+}
@@ -0,0 +1,67 @@
+package tinyrs.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tinyrs.utils.StreamUtility;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class StreamUtilityBenchmark {
+
+    @Param({ "65536", "4194304", "16777216" })
+    private int length;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        bytes = Fixtures.randomBytes(length);
+    }
+
+    @Benchmark
+    public byte[] readBytes() throws IOException {
+        return StreamUtility.readBytes(new ByteArrayInputStream(bytes));
+    }
+
+    @Benchmark
+    public long transfer() throws IOException {
+        return StreamUtility.transfer(new ByteArrayInputStream(bytes), new DiscardingChannel());
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+
+        @Override
+        public int write(final ByteBuffer source) {
+            final int remaining = source.remaining();
+            source.position(source.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
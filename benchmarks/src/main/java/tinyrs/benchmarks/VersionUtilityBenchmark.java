@@ -0,0 +1,73 @@
+package tinyrs.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tinyrs.utils.StreamUtility;
+import tinyrs.utils.VersionUtility;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class VersionUtilityBenchmark {
+
+    @Param({ "200", "1000" })
+    private int classCount;
+    private File gamepackFile;
+    private JarFile gamepack;
+    private byte[] classBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        gamepackFile = Fixtures.gamepack(classCount, 8 * 1024);
+        gamepack = new JarFile(gamepackFile);
+        classBytes = Fixtures.classBytes(classCount * 1024);
+        if (VersionUtility.getRevision(gamepack) != Fixtures.REVISION) {
+            throw new IllegalStateException("The synthetic gamepack has the wrong revision.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        gamepack.close();
+    }
+
+    @Benchmark
+    public int getRevision() throws IOException {
+        return VersionUtility.getRevision(gamepack);
+    }
+
+    @Benchmark
+    public int openThenGetRevision() throws IOException {
+        final JarFile openedGamepack = new JarFile(gamepackFile);
+        try {
+            return VersionUtility.getRevision(openedGamepack);
+        } finally {
+            openedGamepack.close();
+        }
+    }
+
+    @Benchmark
+    public boolean skipPast() throws IOException {
+        return StreamUtility.skipPast(new ByteArrayInputStream(classBytes), Fixtures.REVISION_NUMBER_PATTERN);
+    }
+}
@@ -4,6 +4,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
 import javax.swing.SwingUtilities;
@@ -12,17 +19,30 @@ import tinyrs.gui.GameWindow;
 import tinyrs.gui.PopupBuilder;
 import tinyrs.plugin.BulkPluginLoader;
 import tinyrs.plugin.PluginManager;
-import tinyrs.utils.AppletUtility;
+import tinyrs.utils.ClassDataSharing;
+import tinyrs.utils.GamepackCache;
+import tinyrs.utils.HttpCache;
+import tinyrs.utils.StartupTimeline;
+import tinyrs.utils.WorldLatencyProber;
+import tinyrs.utils.WorldRegistry;
 
 public final class Application {
 
     private static final int INVALID_WORLD = -1;
+    private static final int PROBE_CONCURRENCY = 16;
+    private static final int PROBE_TIMEOUT_MILLIS = 1000;
+    private static final int WORLD_SELECTION_DEADLINE_MILLIS = 3000;
     private static final String JAR_FILE_URL_FORMAT = "jar:file:%s!/";
+    private static final WorldLatencyProber worldProber =
+            new WorldLatencyProber(PROBE_CONCURRENCY, PROBE_TIMEOUT_MILLIS);
     private static File storageDirectory;
 
     public static void main(final String[] arguments) {
+        final StartupTimeline.Phase argumentsPhase = StartupTimeline.begin("arguments");
         JPopupMenu.setDefaultLightWeightPopupEnabled(false);
         final PluginManager pluginManager = new PluginManager();
+        final WorldRegistry worldRegistry = new WorldRegistry();
+        final List<String> pluginArchiveAddresses = new ArrayList<String>();
         for (final String argument : arguments) {
             if (argument.startsWith("storageDirectory=")) {
                 final File specifiedDirectory = new File(argument.substring(17));
@@ -54,16 +74,21 @@ public final class Application {
                 }
                 storageDirectory = specifiedDirectory;
             } else if (argument.startsWith("defaultWorld=")) {
-                final int defaultWorld = parseValidWorld(argument.substring(13));
+                final int defaultWorld = parseWorld(argument.substring(13));
                 if (defaultWorld == INVALID_WORLD) {
                     System.err.println("The specified default world is invalid. Ignoring argument...");
                 } else {
                     GlobalProperty.DEFAULT_WORLD.set(defaultWorld);
+                    validateDefaultWorld(
+                            worldRegistry,
+                            "The specified default world is invalid. Ignoring argument...");
                 }
             } else if (argument.startsWith("pluginArchive=")) {
-                BulkPluginLoader.loadPlugins(pluginManager, String.format(JAR_FILE_URL_FORMAT, argument.substring(14)));
+                pluginArchiveAddresses.add(String.format(JAR_FILE_URL_FORMAT, argument.substring(14)));
             }
         }
+        argumentsPhase.end();
+        final StartupTimeline.Phase propertiesPhase = StartupTimeline.begin("properties");
         boolean loadedProperties = false;
         if (storageDirectory == null) {
             storageDirectory = new File(System.getProperty("user.home"), "tinyrs");
@@ -90,15 +115,34 @@ public final class Application {
                         .showMessage();
             }
         }
-        try {
-            BulkPluginLoader.loadFromRepository(pluginManager);
-        } catch (final IOException e) {
-            System.err.println("Failed to load plugins from the repository.");
-            e.printStackTrace();
+        if (isStorageDirectoryAvailable()) {
+            pluginManager.setLibraryDirectory(new File(storageDirectory, "libraries"));
+            pluginManager.setHostDirectory(new File(storageDirectory, "plugin-hosts"));
+            final File budgetFile = new File(storageDirectory, "plugin-budgets.properties");
+            if (budgetFile.exists()) {
+                try {
+                    pluginManager.loadBudgets(budgetFile);
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        propertiesPhase.end();
+        if (GlobalProperty.CLASS_DATA_SHARING.get(boolean.class)
+                && isStorageDirectoryAvailable()
+                && ClassDataSharing.isSupported()) {
+            final int exitCode = relaunchWithSharedArchive(arguments);
+            if (exitCode != ClassDataSharing.NOT_RELAUNCHED) {
+                System.exit(exitCode);
+            }
         }
-        if (loadedProperties && !AppletUtility.isValidWorld(GlobalProperty.DEFAULT_WORLD.get(int.class))) {
-            GlobalProperty.DEFAULT_WORLD.setDefault();
+        loadPlugins(pluginManager, pluginArchiveAddresses.toArray(new String[pluginArchiveAddresses.size()]));
+        if (loadedProperties) {
+            validateDefaultWorld(worldRegistry, "The saved default world is invalid. Resetting to default...");
         }
+        final Future<Integer> worldSelection = GlobalProperty.AUTO_SELECT_WORLD.get(boolean.class)
+                ? selectFastestWorld(worldRegistry)
+                : null;
         Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
 
             @Override
@@ -113,14 +157,16 @@ public final class Application {
                 }
             }
         }));
+        final StartupTimeline.Phase windowPhase = StartupTimeline.begin("window");
         SwingUtilities.invokeLater(new Runnable() {
 
             @Override
             public void run() {
-                final GameWindow window = new GameWindow(pluginManager);
+                final GameWindow window = new GameWindow(pluginManager, worldRegistry, worldSelection);
                 window.setTitle("tinyrs");
                 window.setVisible(true);
                 window.pack();
+                windowPhase.end();
             }
         });
     }
@@ -133,13 +179,128 @@ public final class Application {
         return storageDirectory;
     }
 
-    private static int parseValidWorld(final String world) {
-        final int worldNumber;
+    private static int relaunchWithSharedArchive(final String[] arguments) {
+        try {
+            final GamepackCache gamepackCache = new GamepackCache(new File(storageDirectory, "gamepacks"));
+            final int pinnedRevision = GlobalProperty.GAMEPACK_REVISION.get(int.class);
+            GamepackCache.Entry entry = pinnedRevision == 0 ? null : gamepackCache.get(pinnedRevision);
+            if (entry == null) {
+                entry = gamepackCache.latest();
+            }
+            if (entry == null) {
+                return ClassDataSharing.NOT_RELAUNCHED;
+            }
+            final List<Integer> cachedRevisions = new ArrayList<Integer>();
+            for (final GamepackCache.Entry cachedEntry : gamepackCache.entries()) {
+                cachedRevisions.add(cachedEntry.revision());
+            }
+            final ClassDataSharing classDataSharing = new ClassDataSharing(new File(storageDirectory, "cds"));
+            classDataSharing.evictExcept(cachedRevisions);
+            return classDataSharing.relaunch(Application.class, entry.revision(), arguments);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            return ClassDataSharing.NOT_RELAUNCHED;
+        }
+    }
+
+    private static void loadPlugins(final PluginManager pluginManager, final String[] pluginArchiveAddresses) {
+        final Thread loaderThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                final StartupTimeline.Phase pluginArchivesPhase = StartupTimeline.begin("plugin archives");
+                final Map<String, Exception> failures = new LinkedHashMap<String, Exception>(
+                        BulkPluginLoader.loadPlugins(pluginManager, pluginArchiveAddresses));
+                pluginArchivesPhase.end();
+                final StartupTimeline.Phase pluginRepositoryPhase = StartupTimeline.begin("plugin repository");
+                HttpCache httpCache = null;
+                if (isStorageDirectoryAvailable()) {
+                    try {
+                        httpCache = new HttpCache(new File(storageDirectory, "plugins"));
+                        pluginManager.setHttpCache(httpCache);
+                    } catch (final IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+                try {
+                    failures.putAll(BulkPluginLoader.loadFromRepository(pluginManager, httpCache));
+                } catch (final IOException e) {
+                    System.err.println("Failed to load plugins from the repository.");
+                    e.printStackTrace();
+                    failures.put(GlobalProperty.PLUGIN_REPOSITORY.get(), e);
+                } finally {
+                    pluginRepositoryPhase.end();
+                }
+                if (!failures.isEmpty()) {
+                    showPluginFailures(failures);
+                }
+            }
+        }, "Plugin Bootstrap");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
+    }
+
+    private static void showPluginFailures(final Map<String, Exception> failures) {
+        final StringBuilder message = new StringBuilder("The following plugins could not be loaded:");
+        for (final Map.Entry<String, Exception> failure : failures.entrySet()) {
+            message.append('\n').append(failure.getKey()).append(": ").append(failure.getValue().getMessage());
+        }
+        new PopupBuilder()
+                .withMessage(message.toString())
+                .withTitle("Plugin Error")
+                .withMessageType(JOptionPane.WARNING_MESSAGE)
+                .showMessage();
+    }
+
+    private static int parseWorld(final String world) {
         try {
-            worldNumber = Integer.parseInt(world);
+            return Integer.parseInt(world);
         } catch (final NumberFormatException expected) {
             return INVALID_WORLD;
         }
-        return AppletUtility.isValidWorld(worldNumber) ? worldNumber : INVALID_WORLD;
+    }
+
+    private static Future<Integer> selectFastestWorld(final WorldRegistry worldRegistry) {
+        final FutureTask<Integer> selectionTask = new FutureTask<Integer>(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws InterruptedException {
+                final List<Integer> worlds;
+                try {
+                    worlds = worldRegistry.fetchWorlds(
+                            GlobalProperty.AUTO_SELECT_MEMBERS_WORLDS.get(boolean.class), PROBE_TIMEOUT_MILLIS);
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                    System.err.println("Could not fetch the world list. Keeping the default world...");
+                    return INVALID_WORLD;
+                }
+                final int probedWorldCount = Math.min(worlds.size(), GlobalProperty.PROBED_WORLD_COUNT.get(int.class));
+                final int fastestWorld = worldProber.selectFastestWorld(
+                        worldRegistry, worlds.subList(0, probedWorldCount), WORLD_SELECTION_DEADLINE_MILLIS);
+                if (fastestWorld == INVALID_WORLD) {
+                    System.err.println("Could not reach any world. Keeping the default world...");
+                } else {
+                    GlobalProperty.DEFAULT_WORLD.set(fastestWorld);
+                }
+                return fastestWorld;
+            }
+        });
+        final Thread selectionThread = new Thread(selectionTask, "World Selector");
+        selectionThread.setDaemon(true);
+        selectionThread.start();
+        return selectionTask;
+    }
+
+    private static void validateDefaultWorld(final WorldRegistry worldRegistry, final String invalidMessage) {
+        worldRegistry.resolve(GlobalProperty.DEFAULT_WORLD.get(int.class), new WorldRegistry.ResolutionListener() {
+
+            @Override
+            public void onResolved(final int world, final boolean valid) {
+                if (!valid && GlobalProperty.DEFAULT_WORLD.get(int.class) == world) {
+                    System.err.println(invalidMessage);
+                    GlobalProperty.DEFAULT_WORLD.setDefault();
+                }
+            }
+        });
     }
 }
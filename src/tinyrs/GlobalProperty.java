@@ -19,7 +19,26 @@ public enum GlobalProperty {
     LAST_WINDOW_Y(0),
     LAST_WINDOW_WIDTH(765),
     LAST_WINDOW_HEIGHT(503),
-    PLUGIN_REPOSITORY("https://s3-us-west-2.amazonaws.com/tinyrs/plugins.txt");
+    PLUGIN_REPOSITORY("https://s3-us-west-2.amazonaws.com/tinyrs/plugins.txt"),
+    DOWNLOAD_CONNECTIONS(4),
+    GAMEPACK_REVISION(0),
+    GAMEPACK_CACHE_REVISIONS(3),
+    GAMEPACK_CACHE_MEGABYTES(0),
+    SPECULATIVE_LAUNCH(true),
+    CLASS_DATA_SHARING(true),
+    AUTO_SELECT_WORLD(false),
+    AUTO_SELECT_MEMBERS_WORLDS(false),
+    PROBED_WORLD_COUNT(100),
+    PLUGIN_LOADER_THREADS(4),
+    PLUGIN_LOAD_TIMEOUT_SECONDS(15),
+    SHARED_PLUGIN_SCHEDULER(false),
+    PLUGIN_SCHEDULER_THREADS(2),
+    PLUGIN_CPU_BUDGET_PERCENT(0),
+    PLUGIN_ALLOCATION_BUDGET_MEGABYTES(0),
+    TICK_ALIGNED_PLUGINS(false),
+    FRAME_CAPTURE_RATE(20),
+    ISOLATED_PLUGINS(""),
+    ISOLATED_PLUGIN_HEAP_MEGABYTES(256);
 
     private static final Set<GlobalProperty> PROPERTIES = Collections.unmodifiableSet(
             EnumSet.allOf(GlobalProperty.class));
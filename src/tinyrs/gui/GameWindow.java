@@ -1,24 +1,48 @@
 package tinyrs.gui;
 
 import java.applet.Applet;
+import java.applet.AppletStub;
+import java.awt.AWTEvent;
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.Desktop;
 import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Robot;
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
+import java.awt.event.AWTEventListener;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.PaintEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.event.WindowStateListener;
+import java.io.Closeable;
 import java.io.File;
-import java.net.MalformedURLException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.jar.JarFile;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import javax.swing.JCheckBoxMenuItem;
@@ -28,6 +52,7 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 
 import tinyrs.Application;
@@ -35,11 +60,22 @@ import tinyrs.GlobalProperty;
 import tinyrs.gui.menu.OpenStorageListener;
 import tinyrs.gui.menu.SetDefaultWorldListener;
 import tinyrs.gui.menu.TakeScreenshotListener;
+import tinyrs.gui.utils.FrameCapturer;
 import tinyrs.gui.utils.GamepackDownloadWorker;
+import tinyrs.plugin.ClientEventBus;
+import tinyrs.plugin.ClientEventType;
 import tinyrs.plugin.PluginManager;
+import tinyrs.plugin.SharedFrame;
 import tinyrs.utils.AppletUtility;
-import tinyrs.utils.StreamUtility;
+import tinyrs.utils.ClassDataSharing;
+import tinyrs.utils.FlightRecorderEvent;
+import tinyrs.utils.GamepackCache;
+import tinyrs.utils.GamepackClassLoader;
+import tinyrs.utils.ParameterCache;
+import tinyrs.utils.StartupTimeline;
 import tinyrs.utils.VersionUtility;
+import tinyrs.utils.WarmUpProfile;
+import tinyrs.utils.WorldRegistry;
 
 public final class GameWindow extends JFrame {
 
@@ -50,11 +86,37 @@ public final class GameWindow extends JFrame {
     private static final Icon CONFIRM_ICON = loadIcon("confirm.png");
     private static final Icon RESIZE_ICON = loadIcon("resize.png");
     private static final Icon ALWAYS_ON_TOP_ICON = loadIcon("top.png");
+    private static final Icon TIMELINE_ICON = loadIcon("clock.png");
+    private static final String[] EVENT_CATEGORY = { "tinyrs", "Client" };
+    private static final FlightRecorderEvent revisionCheckEvent = new FlightRecorderEvent(
+            "tinyrs.RevisionCheck",
+            "Revision Check",
+            EVENT_CATEGORY,
+            new String[] { "revision", "latest" },
+            new Class<?>[] { int.class, boolean.class });
+    private static final FlightRecorderEvent appletLifecycleEvent = new FlightRecorderEvent(
+            "tinyrs.AppletLifecycle",
+            "Applet Lifecycle",
+            EVENT_CATEGORY,
+            new String[] { "transition" },
+            new Class<?>[] { String.class });
     private static final ThreadGroup gameThreads = new ThreadGroup("Game Threads");
+    private static final ExecutorService classDefiners = createClassDefiners();
     private final CenteredTextPanel centerPanel = new CenteredTextPanel();
+    private final ClientEventBus eventBus;
+    private final SharedFrame sharedFrame;
+    private final WorldRegistry worldRegistry;
+    private final Future<Integer> worldSelection;
     private boolean started;
 
-    public GameWindow(final PluginManager pluginManager) {
+    public GameWindow(
+            final PluginManager pluginManager,
+            final WorldRegistry worldRegistry,
+            final Future<Integer> worldSelection) {
+        this.eventBus = pluginManager.getEventBus();
+        this.sharedFrame = pluginManager.getSharedFrame();
+        this.worldRegistry = worldRegistry;
+        this.worldSelection = worldSelection;
         final JMenuBar menuBar = new JMenuBar();
         final JMenu fileMenu = new JMenu("File");
         final boolean rememberBounds = GlobalProperty.REMEMBER_WINDOW_BOUNDS.get(boolean.class);
@@ -83,7 +145,8 @@ public final class GameWindow extends JFrame {
                 fileMenu.add(screenshotItem);
             }
             final JMenuItem defaultWorldItem = new JMenuItem("Set default world", WORLD_ICON);
-            defaultWorldItem.addActionListener(new SetDefaultWorldListener(defaultWorldItem, WORLD_ICON));
+            defaultWorldItem.addActionListener(
+                    new SetDefaultWorldListener(defaultWorldItem, WORLD_ICON, worldRegistry));
             fileMenu.add(defaultWorldItem);
             final JCheckBoxMenuItem rememberBoundsItem = new JCheckBoxMenuItem(
                     "Remember window bounds",
@@ -136,6 +199,24 @@ public final class GameWindow extends JFrame {
             }
         });
         fileMenu.add(alwaysOnTopItem);
+        final JMenuItem timelineItem = new JMenuItem("Show startup timeline", TIMELINE_ICON);
+        timelineItem.addActionListener(new ActionListener() {
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                new PopupBuilder()
+                        .withParent(GameWindow.this)
+                        .withMessage("<html><pre>" + StartupTimeline.format()
+                                .replace("&", "&amp;")
+                                .replace("<", "&lt;")
+                                .replace(">", "&gt;") + "</pre></html>")
+                        .withTitle("Startup Timeline")
+                        .withMessageType(JOptionPane.INFORMATION_MESSAGE)
+                        .withIcon(TIMELINE_ICON)
+                        .showMessage();
+            }
+        });
+        fileMenu.add(timelineItem);
         menuBar.add(fileMenu);
         menuBar.add(pluginManager.getPluginMenu());
         setJMenuBar(menuBar);
@@ -169,6 +250,13 @@ public final class GameWindow extends JFrame {
                 GlobalProperty.LAST_WINDOW_Y.set(screenPosition.y);
             }
         });
+        addWindowStateListener(new WindowStateListener() {
+
+            @Override
+            public void windowStateChanged(final WindowEvent e) {
+                eventBus.publish(ClientEventType.WINDOW_STATE_CHANGED, e.getNewState());
+            }
+        });
         addWindowListener(new WindowAdapter() {
 
             @Override
@@ -206,38 +294,75 @@ public final class GameWindow extends JFrame {
 
     private void loadGame(final PluginManager pluginManager) {
         if (Application.isStorageDirectoryAvailable()) {
-            final File gamepackFile = new File(Application.storageDirectory(), "gamepack.jar");
-            if (gamepackFile.exists()) {
-                new SwingWorker<Boolean, Void>() {
+            final GamepackCache gamepackCache;
+            try {
+                gamepackCache = new GamepackCache(new File(Application.storageDirectory(), "gamepacks"));
+            } catch (final IOException e) {
+                e.printStackTrace();
+                showErrorText("Could not open the gamepack cache.");
+                return;
+            }
+            new SwingWorker<Future<Applet>, Void>() {
 
-                    @Override
-                    protected Boolean doInBackground() throws Exception {
-                        return VersionUtility.isLatestRevision(VersionUtility.getRevision(new JarFile(gamepackFile)));
+                @Override
+                protected Future<Applet> doInBackground() throws Exception {
+                    final File legacyGamepackFile = new File(Application.storageDirectory(), "gamepack.jar");
+                    if (legacyGamepackFile.exists()) {
+                        gamepackCache.add(legacyGamepackFile);
                     }
-
-                    @Override
-                    protected void done() {
-                        boolean latestRevision;
-                        try {
-                            latestRevision = get();
-                        } catch (final Exception e) {
-                            e.printStackTrace();
-                            latestRevision = false;
-                        }
-                        if (latestRevision) {
-                            try {
-                                startGame(pluginManager, gamepackFile.toURI().toURL());
-                            } catch (final MalformedURLException impossible) {
-                                throw new Error(impossible);
-                            }
-                        } else {
-                            downloadThenStartGame(pluginManager, gamepackFile);
+                    final int pinnedRevision = GlobalProperty.GAMEPACK_REVISION.get(int.class);
+                    if (pinnedRevision != 0) {
+                        final GamepackCache.Entry pinnedEntry = gamepackCache.get(pinnedRevision);
+                        if (pinnedEntry != null) {
+                            gamepackCache.touch(pinnedEntry);
+                            ClassDataSharing.recordLaunchedRevision(pinnedEntry.revision());
+                            return loadApplet(pinnedEntry);
                         }
+                        System.err.println("The pinned gamepack revision is not cached. Using the latest instead...");
                     }
-                }.execute();
-            } else {
-                downloadThenStartGame(pluginManager, gamepackFile);
-            }
+                    final GamepackCache.Entry latestEntry = gamepackCache.latest();
+                    if (latestEntry == null) {
+                        return null;
+                    }
+                    Future<Applet> speculativeApplet = GlobalProperty.SPECULATIVE_LAUNCH.get(boolean.class)
+                            ? loadApplet(latestEntry)
+                            : null;
+                    GamepackCache.Entry serverEntry;
+                    try {
+                        serverEntry = findServerRevision(gamepackCache, latestEntry);
+                    } catch (final IOException e) {
+                        e.printStackTrace();
+                        System.err.println("Could not check the gamepack revision. Using the latest cached one...");
+                        serverEntry = latestEntry;
+                    }
+                    if (serverEntry != latestEntry && speculativeApplet != null) {
+                        discardApplet(speculativeApplet);
+                        speculativeApplet = null;
+                    }
+                    if (serverEntry == null) {
+                        return null;
+                    }
+                    gamepackCache.touch(serverEntry);
+                    ClassDataSharing.recordLaunchedRevision(serverEntry.revision());
+                    return speculativeApplet != null ? speculativeApplet : loadApplet(serverEntry);
+                }
+
+                @Override
+                protected void done() {
+                    Future<Applet> gameApplet;
+                    try {
+                        gameApplet = get();
+                    } catch (final Exception e) {
+                        e.printStackTrace();
+                        gameApplet = null;
+                    }
+                    if (gameApplet != null) {
+                        startGame(pluginManager, gameApplet);
+                    } else {
+                        downloadThenStartGame(pluginManager, gamepackCache);
+                    }
+                }
+            }.execute();
         } else {
             final URL gamepackAddress = AppletUtility.createWorldAddress(
                     GlobalProperty.DEFAULT_WORLD.getDefault(int.class),
@@ -246,44 +371,78 @@ public final class GameWindow extends JFrame {
         }
     }
 
-    private void downloadThenStartGame(final PluginManager pluginManager, final File gamepackFile) {
+    private static GamepackCache.Entry findServerRevision(
+            final GamepackCache gamepackCache,
+            final GamepackCache.Entry latestEntry) throws IOException {
+        if (isLatestRevision(latestEntry)) {
+            return latestEntry;
+        }
+        final Set<Integer> checkedRevisions = new HashSet<Integer>();
+        checkedRevisions.add(latestEntry.revision());
+        for (final GamepackCache.Entry entry : gamepackCache.entries()) {
+            if (!checkedRevisions.add(entry.revision())) {
+                continue;
+            }
+            try {
+                if (isLatestRevision(entry)) {
+                    return entry;
+                }
+            } catch (final IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isLatestRevision(final GamepackCache.Entry entry) throws IOException {
+        final StartupTimeline.Phase revisionPhase = StartupTimeline.begin("revision check");
+        final FlightRecorderEvent.Instance event = revisionCheckEvent.begin();
+        try {
+            final boolean latestRevision = VersionUtility.isLatestRevision(entry.revision());
+            event.commit(entry.revision(), latestRevision);
+            return latestRevision;
+        } finally {
+            revisionPhase.end();
+        }
+    }
+
+    private void downloadThenStartGame(final PluginManager pluginManager, final GamepackCache gamepackCache) {
         final JProgressBar progressBar = new JProgressBar();
         progressBar.setStringPainted(true);
         centerPanel.add(progressBar);
         centerPanel.validate();
         centerPanel.showTextAbove("Downloading...", progressBar, 15);
-        new GamepackDownloadWorker(gamepackFile, progressBar) {
+        final StartupTimeline.Phase downloadPhase = StartupTimeline.begin("download");
+        new GamepackDownloadWorker(gamepackCache, progressBar) {
 
             @Override
             protected void done() {
+                downloadPhase.end();
+                final GamepackCache.Entry entry;
                 try {
-                    get();
+                    entry = get();
                 } catch (final Exception e) {
                     e.printStackTrace();
                     showErrorText("Could not download the game client.");
                     return;
                 }
-                try {
-                    startGame(pluginManager, gamepackFile.toURI().toURL());
-                } catch (final MalformedURLException impossible) {
-                    throw new Error(impossible);
-                }
+                ClassDataSharing.recordLaunchedRevision(entry.revision());
+                startGame(pluginManager, loadApplet(entry));
             }
         }.execute();
     }
 
     private void startGame(final PluginManager pluginManager, final URL gamepackAddress) {
+        startGame(pluginManager, loadApplet(gamepackAddress));
+    }
+
+    private void startGame(final PluginManager pluginManager, final Future<Applet> appletFuture) {
         new SwingWorker<Applet, Void>() {
 
             @Override
             protected Applet doInBackground() throws Exception {
-                final Applet gameApplet = (Applet) URLClassLoader.newInstance(new URL[] { gamepackAddress })
-                        .loadClass("client")
-                        .newInstance();
-                final URL codeBase = AppletUtility.createWorldAddress(GlobalProperty.DEFAULT_WORLD.get(int.class), "/");
-                final String pageSource = new String(StreamUtility.readBytes(codeBase.openStream()), "ISO-8859-1");
-                gameApplet.setStub(AppletUtility.createActiveStub(codeBase, AppletUtility.parseParameters(pageSource)));
-                return gameApplet;
+                return appletFuture.get();
             }
 
             @Override
@@ -301,19 +460,312 @@ public final class GameWindow extends JFrame {
                 centerPanel.add(gameApplet);
                 centerPanel.validate();
                 pack();
+                publishClientEvents(gameApplet);
+                startFrameCapture(gameApplet);
                 new Thread(gameThreads, new Runnable() {
 
                     @Override
                     public void run() {
+                        final StartupTimeline.Phase initPhase = StartupTimeline.begin("applet init");
+                        final FlightRecorderEvent.Instance initEvent = appletLifecycleEvent.begin();
                         gameApplet.init();
+                        initEvent.commit("init");
+                        initPhase.end();
+                        final StartupTimeline.Phase startPhase = StartupTimeline.begin("applet start");
+                        final FlightRecorderEvent.Instance startEvent = appletLifecycleEvent.begin();
                         gameApplet.start();
+                        startEvent.commit("start");
+                        startPhase.end();
+                        recordWarmUpProfile(gameApplet.getClass().getClassLoader());
+                        final StartupTimeline.Phase pluginsPhase = StartupTimeline.begin("plugins");
                         pluginManager.startPlugins(gameApplet);
+                        pluginsPhase.end();
+                        writeStartupTimeline();
                     }
                 }, "Game Starter").start();
             }
         }.execute();
     }
 
+    private void publishClientEvents(final Applet gameApplet) {
+        Toolkit.getDefaultToolkit().addAWTEventListener(new AWTEventListener() {
+
+            @Override
+            public void eventDispatched(final AWTEvent event) {
+                final Object source = event.getSource();
+                if (!(source instanceof Component)
+                        || !SwingUtilities.isDescendingFrom((Component) source, gameApplet)) {
+                    return;
+                }
+                if (event instanceof PaintEvent) {
+                    eventBus.publish(ClientEventType.FRAME_PAINTED, event.getID());
+                } else if (event instanceof MouseEvent) {
+                    final MouseEvent mouseEvent = (MouseEvent) event;
+                    eventBus.publish(
+                            ClientEventType.INPUT_RECEIVED,
+                            mouseEvent.getID(),
+                            mouseEvent.getX(),
+                            mouseEvent.getY());
+                } else if (event instanceof KeyEvent) {
+                    final KeyEvent keyEvent = (KeyEvent) event;
+                    eventBus.publish(ClientEventType.INPUT_RECEIVED, keyEvent.getID(), keyEvent.getKeyCode(), 0);
+                }
+            }
+        }, AWTEvent.PAINT_EVENT_MASK
+                | AWTEvent.KEY_EVENT_MASK
+                | AWTEvent.MOUSE_EVENT_MASK
+                | AWTEvent.MOUSE_MOTION_EVENT_MASK
+                | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
+    }
+
+    private void startFrameCapture(final Applet gameApplet) {
+        final int framesPerSecond = GlobalProperty.FRAME_CAPTURE_RATE.get(int.class);
+        if (framesPerSecond <= 0) {
+            return;
+        }
+        final Robot robot;
+        try {
+            robot = new Robot();
+        } catch (final Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        final Thread captureThread = new Thread(
+                gameThreads,
+                new FrameCapturer(robot, gameApplet, sharedFrame, eventBus, framesPerSecond),
+                "Frame Capturer");
+        captureThread.setDaemon(true);
+        captureThread.start();
+    }
+
+    private Future<Applet> loadApplet(final GamepackCache.Entry entry) {
+        final File gamepackFile = entry.file();
+        return loadApplet(entry.revision(), new Callable<ClassLoader>() {
+
+            @Override
+            public ClassLoader call() throws Exception {
+                final GamepackClassLoader classLoader = new GamepackClassLoader(gamepackFile);
+                final File profileFile = WarmUpProfile.getProfileFile(getWarmUpDirectory(), gamepackFile);
+                if (profileFile.isFile()) {
+                    try {
+                        classLoader.warmUp(WarmUpProfile.read(profileFile), classDefiners);
+                    } catch (final IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+                return classLoader;
+            }
+        });
+    }
+
+    private static void recordWarmUpProfile(final ClassLoader classLoader) {
+        if (!(classLoader instanceof GamepackClassLoader)) {
+            return;
+        }
+        final GamepackClassLoader gamepackClassLoader = (GamepackClassLoader) classLoader;
+        final File profileFile =
+                WarmUpProfile.getProfileFile(getWarmUpDirectory(), gamepackClassLoader.getGamepackFile());
+        if (profileFile.exists()) {
+            return;
+        }
+        try {
+            WarmUpProfile.write(profileFile, gamepackClassLoader.definedClassNames());
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeStartupTimeline() {
+        if (!Application.isStorageDirectoryAvailable()) {
+            return;
+        }
+        try {
+            StartupTimeline.write(new File(Application.storageDirectory(), "timelines"));
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static File getWarmUpDirectory() {
+        return new File(Application.storageDirectory(), "warmup");
+    }
+
+    private Future<Applet> loadApplet(final URL gamepackAddress) {
+        return loadApplet(0, new Callable<ClassLoader>() {
+
+            @Override
+            public ClassLoader call() {
+                return URLClassLoader.newInstance(new URL[] { gamepackAddress });
+            }
+        });
+    }
+
+    private Future<Applet> loadApplet(final int revision, final Callable<ClassLoader> classLoaderFactory) {
+        final AtomicReference<ClassLoader> classLoaderReference = new AtomicReference<ClassLoader>();
+        final FutureTask<Applet> appletTask = new FutureTask<Applet>(new Callable<Applet>() {
+
+            @Override
+            public Applet call() throws Exception {
+                final FutureTask<AppletStub> stubTask = new FutureTask<AppletStub>(new Callable<AppletStub>() {
+
+                    @Override
+                    public AppletStub call() throws Exception {
+                        final StartupTimeline.Phase pagePhase = StartupTimeline.begin("applet page");
+                        try {
+                            return createStub(revision);
+                        } finally {
+                            pagePhase.end();
+                        }
+                    }
+                });
+                new Thread(gameThreads, stubTask, "Game Page Loader").start();
+                try {
+                    final StartupTimeline.Phase classLoadingPhase = StartupTimeline.begin("class loading");
+                    final ClassLoader classLoader = classLoaderFactory.call();
+                    if (!classLoaderReference.compareAndSet(null, classLoader)) {
+                        closeClassLoader(classLoader);
+                        throw new CancellationException();
+                    }
+                    final Applet gameApplet = (Applet) classLoader.loadClass("client").newInstance();
+                    classLoadingPhase.end();
+                    gameApplet.setStub(stubTask.get());
+                    return gameApplet;
+                } finally {
+                    stubTask.cancel(true);
+                }
+            }
+        }) {
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    closeClassLoader(classLoaderReference.getAndSet(GameWindow.class.getClassLoader()));
+                }
+            }
+        };
+        new Thread(gameThreads, appletTask, "Game Loader").start();
+        return appletTask;
+    }
+
+    private static void discardApplet(final Future<Applet> appletFuture) {
+        if (appletFuture.cancel(true)) {
+            return;
+        }
+        try {
+            closeClassLoader(appletFuture.get().getClass().getClassLoader());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException expected) {
+        }
+    }
+
+    private static void closeClassLoader(final ClassLoader classLoader) {
+        if (classLoader == GameWindow.class.getClassLoader() || !(classLoader instanceof Closeable)) {
+            return;
+        }
+        try {
+            ((Closeable) classLoader).close();
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private AppletStub createStub(final int revision) throws Exception {
+        if (worldSelection != null) {
+            try {
+                worldSelection.get();
+            } catch (final ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        int world = GlobalProperty.DEFAULT_WORLD.get(int.class);
+        if (!worldRegistry.resolve(world).get()) {
+            world = GlobalProperty.DEFAULT_WORLD.getDefault(int.class);
+        }
+        eventBus.publish(ClientEventType.WORLD_CHANGED, world);
+        final URL codeBase = AppletUtility.createWorldAddress(world, "/");
+        if (!Application.isStorageDirectoryAvailable()) {
+            return AppletUtility.createActiveStub(codeBase, readParameters(codeBase));
+        }
+        final ParameterCache parameterCache =
+                new ParameterCache(new File(Application.storageDirectory(), "parameters"));
+        Map<String, String> parameters = null;
+        try {
+            parameters = parameterCache.load(world, revision);
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+        if (parameters == null) {
+            parameters = readParameters(codeBase);
+            storeParameters(parameterCache, world, revision, parameters);
+        } else {
+            refreshParameters(parameterCache, world, revision, codeBase);
+        }
+        return AppletUtility.createActiveStub(codeBase, parameters);
+    }
+
+    private static void refreshParameters(
+            final ParameterCache parameterCache,
+            final int world,
+            final int revision,
+            final URL codeBase) {
+        final Thread refreshThread = new Thread(gameThreads, new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    storeParameters(parameterCache, world, revision, readParameters(codeBase));
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "Parameter Refresher");
+        refreshThread.setDaemon(true);
+        refreshThread.start();
+    }
+
+    private static void storeParameters(
+            final ParameterCache parameterCache,
+            final int world,
+            final int revision,
+            final Map<String, String> parameters) {
+        try {
+            parameterCache.store(world, revision, parameters);
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Map<String, String> readParameters(final URL codeBase) throws IOException {
+        final InputStream pageStream = codeBase.openStream();
+        try {
+            return AppletUtility.readParameters(pageStream);
+        } finally {
+            pageStream.close();
+        }
+    }
+
+    private static ExecutorService createClassDefiners() {
+        final int threadCount = Runtime.getRuntime().availableProcessors();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                5,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(gameThreads, runnable, "Class Definer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private static ImageIcon loadIcon(final String iconFileName) {
         return new ImageIcon(GameWindow.class.getResource("/resources/" + iconFileName));
     }
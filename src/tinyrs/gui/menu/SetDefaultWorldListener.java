@@ -5,19 +5,25 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import javax.swing.Icon;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import tinyrs.GlobalProperty;
 import tinyrs.gui.PopupBuilder;
-import tinyrs.utils.AppletUtility;
+import tinyrs.utils.WorldRegistry;
 
 public final class SetDefaultWorldListener implements ActionListener {
 
     private final Component component;
     private final Icon popupIcon;
+    private final WorldRegistry worldRegistry;
 
-    public SetDefaultWorldListener(final Component component, final Icon popupIcon) {
+    public SetDefaultWorldListener(
+            final Component component,
+            final Icon popupIcon,
+            final WorldRegistry worldRegistry) {
         this.component = component;
         this.popupIcon = popupIcon;
+        this.worldRegistry = worldRegistry;
     }
 
     @Override
@@ -43,17 +49,31 @@ public final class SetDefaultWorldListener implements ActionListener {
                         .showMessage();
                 return;
             }
-            if (AppletUtility.isValidWorld(world)) {
-                GlobalProperty.DEFAULT_WORLD.set(world);
-            } else {
-                new PopupBuilder()
-                        .withParent(component)
-                        .withMessage("This world is unreachable or does not exist.")
-                        .withTitle("Input Error")
-                        .withMessageType(JOptionPane.INFORMATION_MESSAGE)
-                        .withIcon(popupIcon)
-                        .showMessage();
-            }
+            component.setEnabled(false);
+            worldRegistry.resolve(world, new WorldRegistry.ResolutionListener() {
+
+                @Override
+                public void onResolved(final int resolvedWorld, final boolean valid) {
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            component.setEnabled(true);
+                            if (valid) {
+                                GlobalProperty.DEFAULT_WORLD.set(resolvedWorld);
+                            } else {
+                                new PopupBuilder()
+                                        .withParent(component)
+                                        .withMessage("This world is unreachable or does not exist.")
+                                        .withTitle("Input Error")
+                                        .withMessageType(JOptionPane.INFORMATION_MESSAGE)
+                                        .withIcon(popupIcon)
+                                        .showMessage();
+                            }
+                        }
+                    });
+                }
+            });
         }
     }
 }
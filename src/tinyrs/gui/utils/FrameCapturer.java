@@ -0,0 +1,98 @@
+package tinyrs.gui.utils;
+
+import java.awt.Component;
+import java.awt.IllegalComponentStateException;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import tinyrs.plugin.ClientEventBus;
+import tinyrs.plugin.ClientEventType;
+import tinyrs.plugin.SharedFrame;
+
+public final class FrameCapturer implements Runnable {
+
+    private static final long DEMAND_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final Robot robot;
+    private final Component target;
+    private final SharedFrame sharedFrame;
+    private final ClientEventBus eventBus;
+    private final long periodNanos;
+    private int[] scratchPixels = new int[0];
+
+    public FrameCapturer(
+            final Robot robot,
+            final Component target,
+            final SharedFrame sharedFrame,
+            final ClientEventBus eventBus,
+            final int framesPerSecond) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("The frame rate must be positive.");
+        }
+        this.robot = robot;
+        this.target = target;
+        this.sharedFrame = sharedFrame;
+        this.eventBus = eventBus;
+        periodNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+    }
+
+    @Override
+    public void run() {
+        long nextFrameNanos = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            if (sharedFrame.isDemanded(DEMAND_WINDOW_NANOS) && target.isShowing()) {
+                capture();
+            }
+            nextFrameNanos += periodNanos;
+            long remainingNanos;
+            while ((remainingNanos = nextFrameNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remainingNanos);
+            }
+            if (-remainingNanos > periodNanos) {
+                nextFrameNanos = System.nanoTime();
+            }
+        }
+    }
+
+    private void capture() {
+        final Rectangle captureArea;
+        try {
+            captureArea = target.getGraphicsConfiguration().getBounds().intersection(new Rectangle(
+                    target.getLocationOnScreen(),
+                    target.getSize()));
+        } catch (final IllegalComponentStateException e) {
+            return;
+        }
+        if (captureArea.isEmpty()) {
+            return;
+        }
+        final BufferedImage image = robot.createScreenCapture(captureArea);
+        final long sequence;
+        if (image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && image.getRaster().getSampleModelTranslateX() == 0
+                && image.getRaster().getSampleModelTranslateY() == 0) {
+            final DataBufferInt dataBuffer = (DataBufferInt) image.getRaster().getDataBuffer();
+            sequence = sharedFrame.update(
+                    image.getWidth(),
+                    image.getHeight(),
+                    dataBuffer.getData(),
+                    dataBuffer.getOffset(),
+                    ((SinglePixelPackedSampleModel) image.getSampleModel()).getScanlineStride());
+        } else {
+            final int pixelCount = image.getWidth() * image.getHeight();
+            if (scratchPixels.length < pixelCount) {
+                scratchPixels = new int[pixelCount];
+            }
+            image.getRGB(0, 0, image.getWidth(), image.getHeight(), scratchPixels, 0, image.getWidth());
+            sequence = sharedFrame.update(image.getWidth(), image.getHeight(), scratchPixels, 0, image.getWidth());
+        }
+        if (sequence != -1) {
+            eventBus.publish(ClientEventType.FRAME_CAPTURED, (int) sequence);
+        }
+    }
+}
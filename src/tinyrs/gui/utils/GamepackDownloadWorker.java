@@ -1,63 +1,67 @@
 package tinyrs.gui.utils;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URL;
-import java.net.URLConnection;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.swing.JProgressBar;
 import javax.swing.SwingWorker;
 
 import tinyrs.GlobalProperty;
 import tinyrs.utils.AppletUtility;
-import tinyrs.utils.StreamUtility;
+import tinyrs.utils.FlightRecorderEvent;
+import tinyrs.utils.GamepackCache;
+import tinyrs.utils.RangedDownloader;
 
-public class GamepackDownloadWorker extends SwingWorker<Void, Integer> {
+public class GamepackDownloadWorker extends SwingWorker<GamepackCache.Entry, Integer> {
 
-    private final File destinationFile;
+    private static final FlightRecorderEvent downloadEvent = new FlightRecorderEvent(
+            "tinyrs.GamepackDownload",
+            "Gamepack Download",
+            new String[] { "tinyrs", "Client" },
+            new String[] { "address", "connections", "bytes" },
+            new Class<?>[] { String.class, int.class, long.class });
+    private final GamepackCache gamepackCache;
     private final JProgressBar progressBar;
 
-    public GamepackDownloadWorker(final File destinationFile, final JProgressBar progressBar) {
-        this.destinationFile = destinationFile;
+    public GamepackDownloadWorker(final GamepackCache gamepackCache, final JProgressBar progressBar) {
+        this.gamepackCache = gamepackCache;
         this.progressBar = progressBar;
     }
 
     @Override
-    protected final Void doInBackground() throws Exception {
+    protected final GamepackCache.Entry doInBackground() throws Exception {
         final URL gamepackAddress =
                 AppletUtility.createWorldAddress(GlobalProperty.DEFAULT_WORLD.getDefault(int.class), "/gamepack.jar");
-        final URLConnection gamepackConnection = gamepackAddress.openConnection();
-        final int gamepackSize = gamepackConnection.getContentLength();
-        publish(gamepackSize == -1 ? Integer.MIN_VALUE : 0);
-        final InputStream gamepackStream = gamepackConnection.getInputStream();
-        try {
-            final byte[] gamepackBytes;
-            if (gamepackSize == -1) {
-                gamepackBytes = StreamUtility.readBytes(gamepackStream);
-            } else {
-                final AtomicInteger totalBytesRead = new AtomicInteger();
-                gamepackBytes = StreamUtility.readBytes(gamepackStream, new StreamUtility.ProgressListener() {
+        final int connectionCount = Math.max(1, GlobalProperty.DOWNLOAD_CONNECTIONS.get(int.class));
+        final RangedDownloader downloader =
+                new RangedDownloader(gamepackAddress, gamepackCache.getDownloadFile(), connectionCount);
+        final FlightRecorderEvent.Instance event = downloadEvent.begin();
+        downloader.download(new RangedDownloader.Listener() {
 
-                    @Override
-                    public void onBytesRead(final int amount) {
-                        publish(100 * totalBytesRead.addAndGet(amount) / gamepackSize);
-                    }
-                });
+            private final AtomicLong totalBytesRead = new AtomicLong();
+            private volatile long gamepackSize;
+
+            @Override
+            public void onStart(final long contentLength, final long completedBytes) {
+                gamepackSize = contentLength;
+                totalBytesRead.set(completedBytes);
+                publish(contentLength == -1 ? Integer.MIN_VALUE : (int) (100 * completedBytes / contentLength));
             }
-            final OutputStream fileStream = new FileOutputStream(destinationFile);
-            try {
-                fileStream.write(gamepackBytes);
-                fileStream.flush();
-            } finally {
-                fileStream.close();
+
+            @Override
+            public void onBytesRead(final int amount) {
+                final long bytesRead = totalBytesRead.addAndGet(amount);
+                if (gamepackSize > 0) {
+                    publish((int) (100 * bytesRead / gamepackSize));
+                }
             }
-        } finally {
-            gamepackStream.close();
-        }
-        return null;
+        });
+        event.commit(gamepackAddress.toString(), connectionCount, gamepackCache.getDownloadFile().length());
+        final GamepackCache.Entry entry = gamepackCache.add(gamepackCache.getDownloadFile());
+        gamepackCache.evict(
+                GlobalProperty.GAMEPACK_CACHE_REVISIONS.get(int.class),
+                GlobalProperty.GAMEPACK_CACHE_MEGABYTES.get(int.class) * 1024L * 1024L);
+        return entry;
     }
 
     @Override
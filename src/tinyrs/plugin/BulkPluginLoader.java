@@ -1,16 +1,29 @@
 package tinyrs.plugin;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import tinyrs.GlobalProperty;
+import tinyrs.utils.HttpCache;
 import tinyrs.utils.StreamUtility;
 
 public final class BulkPluginLoader {
@@ -23,27 +36,74 @@ public final class BulkPluginLoader {
     public static Map<String, Exception> loadPlugins(
             final PluginManager pluginManager,
             final String... pluginAddresses) {
-        final Map<String, Exception> failureMap = new HashMap<String, Exception>();
+        return loadPlugins(pluginManager, null, pluginAddresses);
+    }
+
+    public static Map<String, Exception> loadPlugins(
+            final PluginManager pluginManager,
+            final HttpCache httpCache,
+            final String... pluginAddresses) {
+        if (pluginAddresses.length == 0) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Exception> failureMap = new ConcurrentHashMap<String, Exception>();
+        final int threadCount =
+                Math.max(1, Math.min(GlobalProperty.PLUGIN_LOADER_THREADS.get(int.class), pluginAddresses.length));
+        final int timeoutMillis = getTimeoutMillis();
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(threadCount, createThreadFactory("Plugin Loader"));
+        final ExecutorService fetchExecutor = Executors.newCachedThreadPool(createThreadFactory("Plugin Fetcher"));
         for (final String pluginAddress : pluginAddresses) {
-            try {
-                final URL pluginUrl;
-                if (!pluginAddress.startsWith("jar:")) {
-                    pluginUrl = new URL(String.format(JAR_URL_FORMAT,  pluginAddress));
-                } else {
-                    pluginUrl = new URL(pluginAddress);
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    final PluginFetch fetch = new PluginFetch(pluginManager, httpCache, pluginAddress, timeoutMillis);
+                    final Future<Plugin> fetchResult = fetchExecutor.submit(fetch);
+                    try {
+                        pluginManager.addPlugin(fetchResult.get(timeoutMillis, TimeUnit.MILLISECONDS));
+                    } catch (final TimeoutException e) {
+                        fetchResult.cancel(true);
+                        fetch.abandon();
+                        fail(new PluginException(
+                                "The plugin did not load within " + timeoutMillis + " milliseconds.", e));
+                    } catch (final ExecutionException e) {
+                        fail(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                    } catch (final InterruptedException e) {
+                        fetchResult.cancel(true);
+                        fetch.abandon();
+                        Thread.currentThread().interrupt();
+                    } catch (final RuntimeException e) {
+                        fail(e);
+                    }
                 }
-                final JarURLConnection pluginConnection = (JarURLConnection) pluginUrl.openConnection();
-                pluginManager.loadPlugin(pluginConnection);
-            } catch (final Exception e) {
-                System.err.println("Failed to load the plugin at " + pluginAddress + ". Ignoring...");
-                e.printStackTrace();
-                failureMap.put(pluginAddress, e);
-            }
+
+                private void fail(final Exception e) {
+                    System.err.println("Failed to load the plugin at " + pluginAddress + ". Ignoring...");
+                    e.printStackTrace();
+                    failureMap.put(pluginAddress, e);
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            fetchExecutor.shutdown();
         }
-        return Collections.unmodifiableMap(failureMap);
+        return Collections.unmodifiableMap(new HashMap<String, Exception>(failureMap));
     }
 
     public static Map<String, Exception> loadFromRepository(final PluginManager pluginManager) throws IOException {
+        return loadFromRepository(pluginManager, null);
+    }
+
+    public static Map<String, Exception> loadFromRepository(
+            final PluginManager pluginManager,
+            final HttpCache httpCache) throws IOException {
         URL repositoryAddress;
         try {
             repositoryAddress = new URL(GlobalProperty.PLUGIN_REPOSITORY.get());
@@ -56,13 +116,123 @@ public final class BulkPluginLoader {
             GlobalProperty.PLUGIN_REPOSITORY.setDefault();
             repositoryAddress = new URL(GlobalProperty.PLUGIN_REPOSITORY.get());
         }
-        final InputStream repositoryStream = repositoryAddress.openStream();
+        final InputStream repositoryStream;
+        if (httpCache != null && HttpCache.isCacheable(repositoryAddress)) {
+            repositoryStream = new FileInputStream(httpCache.get(repositoryAddress, getTimeoutMillis() / 2));
+        } else {
+            final URLConnection repositoryConnection = repositoryAddress.openConnection();
+            repositoryConnection.setConnectTimeout(getTimeoutMillis());
+            repositoryConnection.setReadTimeout(getTimeoutMillis());
+            repositoryStream = repositoryConnection.getInputStream();
+        }
         final byte[] repositorySourceBytes;
         try {
             repositorySourceBytes = StreamUtility.readBytes(repositoryStream);
         } finally {
             repositoryStream.close();
         }
-        return loadPlugins(pluginManager, new String(repositorySourceBytes, Charset.forName("UTF-8")).split("\n"));
+        return loadPlugins(
+                pluginManager,
+                httpCache,
+                new String(repositorySourceBytes, Charset.forName("UTF-8")).split("\n"));
+    }
+
+    private static Plugin fetchPlugin(
+            final PluginManager pluginManager,
+            final HttpCache httpCache,
+            final String pluginAddress,
+            final int timeoutMillis) throws IOException, PluginException {
+        String archiveAddress = pluginAddress;
+        if (archiveAddress.startsWith("jar:")) {
+            final int separatorIndex = archiveAddress.indexOf("!/");
+            archiveAddress = archiveAddress.substring(
+                    4,
+                    separatorIndex == -1 ? archiveAddress.length() : separatorIndex);
+        }
+        final URL archiveUrl = new URL(archiveAddress);
+        final URL pluginUrl;
+        final boolean cached = httpCache != null && HttpCache.isCacheable(archiveUrl);
+        if (cached) {
+            final File archiveFile = httpCache.get(archiveUrl, timeoutMillis / 2);
+            pluginUrl = new URL(String.format(JAR_URL_FORMAT, archiveFile.toURI().toURL()));
+        } else if (!pluginAddress.startsWith("jar:")) {
+            pluginUrl = new URL(String.format(JAR_URL_FORMAT,  pluginAddress));
+        } else {
+            pluginUrl = new URL(pluginAddress);
+        }
+        final JarURLConnection pluginConnection = (JarURLConnection) pluginUrl.openConnection();
+        pluginConnection.setConnectTimeout(timeoutMillis);
+        pluginConnection.setReadTimeout(timeoutMillis);
+        final Plugin plugin = pluginManager.createPlugin(pluginConnection);
+        if (cached) {
+            plugin.setSourceAddress(archiveUrl);
+        }
+        return plugin;
+    }
+
+    private static ThreadFactory createThreadFactory(final String threadName) {
+        return new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(Plugin.pluginThreads, runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    static int getTimeoutMillis() {
+        return (int) TimeUnit.SECONDS.toMillis(Math.max(1, GlobalProperty.PLUGIN_LOAD_TIMEOUT_SECONDS.get(int.class)));
+    }
+
+    private static final class PluginFetch implements Callable<Plugin> {
+
+        private final PluginManager pluginManager;
+        private final HttpCache httpCache;
+        private final String pluginAddress;
+        private final int timeoutMillis;
+        private boolean abandoned;
+        private Plugin plugin;
+
+        private PluginFetch(
+                final PluginManager pluginManager,
+                final HttpCache httpCache,
+                final String pluginAddress,
+                final int timeoutMillis) {
+            this.pluginManager = pluginManager;
+            this.httpCache = httpCache;
+            this.pluginAddress = pluginAddress;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public Plugin call() throws IOException, PluginException {
+            final Plugin fetchedPlugin = fetchPlugin(pluginManager, httpCache, pluginAddress, timeoutMillis);
+            synchronized (this) {
+                if (!abandoned) {
+                    plugin = fetchedPlugin;
+                    return fetchedPlugin;
+                }
+            }
+            PluginManager.discardPlugin(fetchedPlugin);
+            throw new PluginException("The plugin was abandoned after its load timed out.");
+        }
+
+        private void abandon() {
+            final Plugin fetchedPlugin;
+            synchronized (this) {
+                abandoned = true;
+                fetchedPlugin = plugin;
+                plugin = null;
+            }
+            if (fetchedPlugin != null) {
+                try {
+                    PluginManager.discardPlugin(fetchedPlugin);
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 }
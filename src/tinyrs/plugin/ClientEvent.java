@@ -0,0 +1,53 @@
+package tinyrs.plugin;
+
+public final class ClientEvent {
+
+    private long sequence;
+    private ClientEventType type;
+    private long timestampNanos;
+    private int value;
+    private int x;
+    private int y;
+
+    ClientEvent() {
+    }
+
+    void set(
+            final long sequence,
+            final ClientEventType type,
+            final long timestampNanos,
+            final int value,
+            final int x,
+            final int y) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timestampNanos = timestampNanos;
+        this.value = value;
+        this.x = x;
+        this.y = y;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public ClientEventType type() {
+        return type;
+    }
+
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
+    public int value() {
+        return value;
+    }
+
+    public int x() {
+        return x;
+    }
+
+    public int y() {
+        return y;
+    }
+}
@@ -0,0 +1,204 @@
+package tinyrs.plugin;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public final class ClientEventBus {
+
+    private static final int MAXIMUM_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicBoolean dispatcherWaiting = new AtomicBoolean();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+    private volatile Thread dispatcherThread;
+
+    public ClientEventBus(final int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a positive power of two.");
+        }
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+    }
+
+    public void publish(final ClientEventType type, final int value) {
+        publish(type, value, 0, 0);
+    }
+
+    public void publish(final ClientEventType type, final int value, final int x, final int y) {
+        final long sequence = nextSequence.getAndIncrement();
+        final Slot slot = slots[(int) sequence & mask];
+        slot.sequence = -1;
+        slot.type = type;
+        slot.timestampNanos = System.nanoTime();
+        slot.value = value;
+        slot.x = x;
+        slot.y = y;
+        slot.sequence = sequence;
+        if (dispatcherWaiting.get()) {
+            final Thread thread = dispatcherThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    public Subscription subscribe(final ClientEventListener listener) {
+        final Subscription subscription = new Subscription(listener, nextSequence.get());
+        subscriptions.add(subscription);
+        startDispatcher();
+        return subscription;
+    }
+
+    public void unsubscribe(final ClientEventListener listener) {
+        for (final Subscription subscription : subscriptions) {
+            if (subscription.listener == listener) {
+                subscription.cancel();
+            }
+        }
+    }
+
+    void unsubscribeAll(final ClassLoader classLoader) {
+        for (final Subscription subscription : subscriptions) {
+            if (subscription.listener.getClass().getClassLoader() == classLoader) {
+                subscription.cancel();
+            }
+        }
+    }
+
+    private synchronized void startDispatcher() {
+        if (dispatcherThread != null) {
+            return;
+        }
+        final Thread thread = AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+
+            @Override
+            public Thread run() {
+                return new Thread(Plugin.pluginThreads, new Runnable() {
+
+                    @Override
+                    public void run() {
+                        while (true) {
+                            dispatcherWaiting.set(true);
+                            if (!dispatch()) {
+                                LockSupport.parkNanos(ClientEventBus.this, IDLE_PARK_NANOS);
+                            }
+                            dispatcherWaiting.set(false);
+                        }
+                    }
+                }, "Plugin Event Dispatcher");
+            }
+        });
+        thread.setDaemon(true);
+        dispatcherThread = thread;
+        thread.start();
+    }
+
+    private boolean isPublished(final long sequence) {
+        return sequence < nextSequence.get() && slots[(int) sequence & mask].sequence >= sequence;
+    }
+
+    private boolean dispatch() {
+        boolean scheduled = false;
+        for (final Subscription subscription : subscriptions) {
+            scheduled |= subscription.scheduleDelivery();
+        }
+        return scheduled;
+    }
+
+    private static final class Slot {
+
+        private volatile long sequence = -1;
+        private volatile ClientEventType type;
+        private volatile long timestampNanos;
+        private volatile int value;
+        private volatile int x;
+        private volatile int y;
+    }
+
+    public final class Subscription {
+
+        private final ClientEventListener listener;
+        private final ClientEvent event = new ClientEvent();
+        private final AtomicBoolean delivering = new AtomicBoolean();
+        private final Runnable deliveryTask = new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    deliver();
+                } finally {
+                    delivering.set(false);
+                }
+                scheduleDelivery();
+            }
+        };
+        private volatile boolean cancelled;
+        private volatile long droppedEvents;
+        private volatile long cursor;
+
+        private Subscription(final ClientEventListener listener, final long cursor) {
+            this.listener = listener;
+            this.cursor = cursor;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public long droppedEvents() {
+            return droppedEvents;
+        }
+
+        private boolean scheduleDelivery() {
+            if (cancelled || !isPublished(cursor) || !delivering.compareAndSet(false, true)) {
+                return false;
+            }
+            PluginScheduler.execute(deliveryTask);
+            return true;
+        }
+
+        private void deliver() {
+            int delivered = 0;
+            while (delivered < MAXIMUM_BATCH_SIZE && !cancelled && cursor < nextSequence.get()) {
+                final Slot slot = slots[(int) cursor & mask];
+                final long slotSequence = slot.sequence;
+                if (slotSequence < cursor) {
+                    break;
+                }
+                if (slotSequence == cursor) {
+                    event.set(cursor, slot.type, slot.timestampNanos, slot.value, slot.x, slot.y);
+                    if (slot.sequence == cursor) {
+                        cursor++;
+                        delivered++;
+                        final boolean endOfBatch = delivered == MAXIMUM_BATCH_SIZE || !isPublished(cursor);
+                        try {
+                            listener.onEvent(event, endOfBatch);
+                        } catch (final RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                        continue;
+                    }
+                }
+                final long oldestAvailable = Math.max(cursor + 1, nextSequence.get() - slots.length);
+                droppedEvents += oldestAvailable - cursor;
+                cursor = oldestAvailable;
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package tinyrs.plugin;
+
+public interface ClientEventListener {
+
+    void onEvent(ClientEvent event, boolean endOfBatch);
+}
@@ -0,0 +1,10 @@
+package tinyrs.plugin;
+
+public enum ClientEventType {
+
+    FRAME_PAINTED,
+    FRAME_CAPTURED,
+    INPUT_RECEIVED,
+    WINDOW_STATE_CHANGED,
+    WORLD_CHANGED
+}
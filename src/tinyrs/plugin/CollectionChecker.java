@@ -0,0 +1,119 @@
+package tinyrs.plugin;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+final class CollectionChecker implements Runnable {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long SETTLE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<Object>();
+    private final Set<PluginReference> pendingReferences = new HashSet<PluginReference>();
+    private int openBatches;
+    private long lastWatchNanos;
+    private long collectionNanos;
+    private Thread checkerThread;
+
+    synchronized Future<Boolean> watch(final String pluginName, final Object referent) {
+        final PluginReference reference = new PluginReference(pluginName, referent, referenceQueue);
+        pendingReferences.add(reference);
+        lastWatchNanos = System.nanoTime();
+        collectionNanos = 0;
+        if (checkerThread == null) {
+            checkerThread = new Thread(this, "Plugin Collection Checker");
+            checkerThread.setDaemon(true);
+            checkerThread.start();
+        }
+        return reference.result;
+    }
+
+    synchronized void beginBatch() {
+        openBatches++;
+    }
+
+    synchronized void endBatch() {
+        openBatches--;
+        lastWatchNanos = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                final Reference<?> reference = referenceQueue.remove(POLL_INTERVAL_MILLIS);
+                if (reference != null) {
+                    collected((PluginReference) reference);
+                }
+            } catch (final InterruptedException e) {
+                return;
+            }
+            final boolean collectionDue;
+            synchronized (this) {
+                if (pendingReferences.isEmpty()) {
+                    checkerThread = null;
+                    return;
+                }
+                final long now = System.nanoTime();
+                collectionDue = collectionNanos == 0 && openBatches == 0 && now - lastWatchNanos >= SETTLE_NANOS;
+                if (collectionDue) {
+                    collectionNanos = now;
+                } else if (collectionNanos != 0 && now - collectionNanos >= TIMEOUT_NANOS) {
+                    expirePendingReferences();
+                }
+            }
+            if (collectionDue) {
+                System.gc();
+            }
+        }
+    }
+
+    private synchronized void collected(final PluginReference reference) {
+        if (pendingReferences.remove(reference)) {
+            reference.complete(true);
+        }
+    }
+
+    private void expirePendingReferences() {
+        final Iterator<PluginReference> iterator = pendingReferences.iterator();
+        while (iterator.hasNext()) {
+            final PluginReference reference = iterator.next();
+            iterator.remove();
+            System.err.println("The plugin " + reference.pluginName + " is still reachable after being unloaded.");
+            reference.complete(false);
+        }
+    }
+
+    private static final class PluginReference extends WeakReference<Object> implements Callable<Boolean> {
+
+        private final String pluginName;
+        private final FutureTask<Boolean> result = new FutureTask<Boolean>(this);
+        private volatile boolean collected;
+
+        private PluginReference(
+                final String pluginName,
+                final Object referent,
+                final ReferenceQueue<Object> referenceQueue) {
+            super(referent, referenceQueue);
+            this.pluginName = pluginName;
+        }
+
+        private void complete(final boolean collected) {
+            this.collected = collected;
+            result.run();
+        }
+
+        @Override
+        public Boolean call() {
+            return collected;
+        }
+    }
+}
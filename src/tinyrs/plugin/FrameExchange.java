@@ -0,0 +1,117 @@
+package tinyrs.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+final class FrameExchange {
+
+    private static final int MAGIC = 0x74726678;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int DEMANDED_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int WIDTH_OFFSET = 16;
+    private static final int HEIGHT_OFFSET = 20;
+    private static final int EXECUTIONS_OFFSET = 24;
+    private static final int CPU_NANOS_OFFSET = 32;
+    private static final int ALLOCATED_BYTES_OFFSET = 40;
+    private static final int HEADER_BYTES = 64;
+    private final RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    private int[] scratch = new int[0];
+
+    FrameExchange(final File exchangeFile, final boolean create) throws IOException {
+        file = new RandomAccessFile(exchangeFile, "rw");
+        if (create) {
+            file.setLength(0);
+            map(HEADER_BYTES);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+        } else {
+            map((int) file.length());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                file.close();
+                throw new IOException("The frame exchange file is not valid.");
+            }
+        }
+    }
+
+    synchronized boolean isDemanded() {
+        return buffer.getInt(DEMANDED_OFFSET) != 0;
+    }
+
+    synchronized void setDemanded(final boolean demanded) {
+        buffer.putInt(DEMANDED_OFFSET, demanded ? 1 : 0);
+    }
+
+    synchronized void writeFrame(final FrameSnapshot snapshot) throws IOException {
+        final int width = snapshot.width();
+        final int height = snapshot.height();
+        final int pixelCount = width * height;
+        if (buffer.capacity() < HEADER_BYTES + pixelCount * 4) {
+            map(HEADER_BYTES + pixelCount * 4);
+        }
+        if (scratch.length < pixelCount) {
+            scratch = new int[pixelCount];
+        }
+        snapshot.copyPixels(0, 0, width, height, scratch, 0);
+        pixels().put(scratch, 0, pixelCount);
+        buffer.putInt(WIDTH_OFFSET, width);
+        buffer.putInt(HEIGHT_OFFSET, height);
+        buffer.putLong(SEQUENCE_OFFSET, snapshot.sequence());
+    }
+
+    synchronized long readFrame(final SharedFrame sharedFrame) throws IOException {
+        final int width = buffer.getInt(WIDTH_OFFSET);
+        final int height = buffer.getInt(HEIGHT_OFFSET);
+        final int pixelCount = width * height;
+        if (buffer.capacity() < HEADER_BYTES + pixelCount * 4) {
+            map((int) file.length());
+            if (buffer.capacity() < HEADER_BYTES + pixelCount * 4) {
+                throw new IOException("The frame does not fit in the frame exchange file.");
+            }
+        }
+        if (scratch.length < pixelCount) {
+            scratch = new int[pixelCount];
+        }
+        pixels().get(scratch, 0, pixelCount);
+        return sharedFrame.update(width, height, scratch, 0, width);
+    }
+
+    synchronized void writeUsage(final PluginUsage usage) {
+        buffer.putLong(EXECUTIONS_OFFSET, usage.executions());
+        buffer.putLong(CPU_NANOS_OFFSET, usage.cpuNanos());
+        buffer.putLong(ALLOCATED_BYTES_OFFSET, usage.allocatedBytes());
+    }
+
+    synchronized long executions() {
+        return buffer.getLong(EXECUTIONS_OFFSET);
+    }
+
+    synchronized long cpuNanos() {
+        return buffer.getLong(CPU_NANOS_OFFSET);
+    }
+
+    synchronized long allocatedBytes() {
+        return buffer.getLong(ALLOCATED_BYTES_OFFSET);
+    }
+
+    synchronized void close() throws IOException {
+        file.close();
+    }
+
+    private IntBuffer pixels() {
+        buffer.position(HEADER_BYTES);
+        final IntBuffer pixels = buffer.slice().order(ByteOrder.nativeOrder()).asIntBuffer();
+        buffer.position(0);
+        return pixels;
+    }
+
+    private void map(final int size) throws IOException {
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, file.length()));
+        buffer.order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,85 @@
+package tinyrs.plugin;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class FrameSnapshot {
+
+    final AtomicInteger pins = new AtomicInteger();
+    private int[] pixels = new int[0];
+    private int width;
+    private int height;
+    private long sequence;
+    private long timestampNanos;
+
+    FrameSnapshot() {
+    }
+
+    void write(
+            final long sequence,
+            final int width,
+            final int height,
+            final int[] source,
+            final int offset,
+            final int scanlineStride) {
+        if (pixels.length < width * height) {
+            pixels = new int[width * height];
+        }
+        if (scanlineStride == width) {
+            System.arraycopy(source, offset, pixels, 0, width * height);
+        } else {
+            for (int row = 0; row < height; row++) {
+                System.arraycopy(source, offset + row * scanlineStride, pixels, row * width, width);
+            }
+        }
+        this.width = width;
+        this.height = height;
+        this.sequence = sequence;
+        timestampNanos = System.nanoTime();
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int pixel(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IndexOutOfBoundsException("The pixel (" + x + ", " + y + ") lies outside the frame.");
+        }
+        return pixels[y * width + x];
+    }
+
+    public void copyPixels(
+            final int x,
+            final int y,
+            final int regionWidth,
+            final int regionHeight,
+            final int[] destination,
+            final int offset) {
+        if (x < 0 || y < 0 || regionWidth < 0 || regionHeight < 0
+                || x + regionWidth > width || y + regionHeight > height) {
+            throw new IndexOutOfBoundsException("The region lies outside the frame.");
+        }
+        for (int row = 0; row < regionHeight; row++) {
+            System.arraycopy(pixels, (y + row) * width + x, destination, offset + row * regionWidth, regionWidth);
+        }
+    }
+
+    public void release() {
+        if (pins.decrementAndGet() < 0) {
+            pins.incrementAndGet();
+            throw new IllegalStateException("The snapshot has already been released.");
+        }
+    }
+}
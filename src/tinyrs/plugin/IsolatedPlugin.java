@@ -0,0 +1,309 @@
+package tinyrs.plugin;
+
+import java.applet.Applet;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.JMenuItem;
+
+import tinyrs.GlobalProperty;
+import tinyrs.utils.StreamUtility;
+
+final class IsolatedPlugin extends Plugin {
+
+    private final URL archiveAddress;
+    private final String pluginClassName;
+    private final File hostDirectory;
+    private final File libraryDirectory;
+    private final CountDownLatch startLatch = new CountDownLatch(1);
+    private final AtomicBoolean awaitingFrame = new AtomicBoolean();
+    private volatile String failure;
+    private Process process;
+    private PrintWriter controlWriter;
+    private FrameExchange frameExchange;
+    private File exchangeFile;
+    private File propertiesFile;
+    private ClientEventBus.Subscription subscription;
+    private long lastFrameSequence;
+
+    IsolatedPlugin(
+            final URL archiveAddress,
+            final String pluginClassName,
+            final File hostDirectory,
+            final File libraryDirectory) {
+        this.archiveAddress = archiveAddress;
+        this.pluginClassName = pluginClassName;
+        this.hostDirectory = hostDirectory;
+        this.libraryDirectory = libraryDirectory;
+    }
+
+    @Override
+    protected String name() {
+        return pluginClassName.substring(pluginClassName.lastIndexOf('.') + 1);
+    }
+
+    @Override
+    protected void initializePlugin(final Applet applet) throws PluginException {
+        final int timeoutSeconds = GlobalProperty.PLUGIN_LOAD_TIMEOUT_SECONDS.get(int.class);
+        try {
+            if (!hostDirectory.isDirectory() && !hostDirectory.mkdirs()) {
+                throw new IOException("Could not create the plugin host directory.");
+            }
+            exchangeFile = File.createTempFile(name() + '-', ".frame", hostDirectory);
+            propertiesFile = File.createTempFile(name() + '-', ".properties", hostDirectory);
+            final OutputStream propertiesStream = new FileOutputStream(propertiesFile);
+            try {
+                GlobalProperty.writeAll(propertiesStream);
+            } finally {
+                propertiesStream.close();
+            }
+            frameExchange = new FrameExchange(exchangeFile, true);
+            process = new ProcessBuilder(createCommand()).start();
+            controlWriter = new PrintWriter(new OutputStreamWriter(process.getOutputStream(), "UTF-8"));
+            startControlReader();
+            startErrorPump();
+            if (!startLatch.await(timeoutSeconds, TimeUnit.SECONDS)) {
+                throw new PluginException("The plugin host did not start within " + timeoutSeconds + " seconds.");
+            }
+        } catch (final IOException e) {
+            destroy();
+            throw new PluginException("Failed to start the plugin host.", e);
+        } catch (final InterruptedException e) {
+            destroy();
+            Thread.currentThread().interrupt();
+            throw new PluginException("Interrupted while starting the plugin host.", e);
+        } catch (final PluginException e) {
+            destroy();
+            throw e;
+        }
+        if (failure != null) {
+            destroy();
+            throw new PluginException("The plugin failed to start in its host: " + failure);
+        }
+        subscription = getEventBus().subscribe(new ClientEventListener() {
+
+            @Override
+            public void onEvent(final ClientEvent event, final boolean endOfBatch) {
+                if (event.type() == ClientEventType.FRAME_CAPTURED) {
+                    return;
+                }
+                synchronized (IsolatedPlugin.this) {
+                    if (controlWriter == null) {
+                        return;
+                    }
+                    controlWriter.println("event " + event.type().name()
+                            + ' ' + event.value() + ' ' + event.x() + ' ' + event.y());
+                    if (endOfBatch) {
+                        controlWriter.flush();
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    protected long execute() {
+        if (!isAlive()) {
+            System.err.println("The plugin host of " + name() + " has exited. Stopping the plugin...");
+            stop();
+            return 0;
+        }
+        if (frameExchange.isDemanded() && !awaitingFrame.get()) {
+            final FrameSnapshot snapshot = getSharedFrame().acquire();
+            if (snapshot != null) {
+                try {
+                    if (snapshot.sequence() != lastFrameSequence) {
+                        frameExchange.writeFrame(snapshot);
+                        lastFrameSequence = snapshot.sequence();
+                        awaitingFrame.set(true);
+                        sendCommand("frame");
+                    }
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    snapshot.release();
+                }
+            }
+        }
+        return 1000 / Math.max(1, GlobalProperty.FRAME_CAPTURE_RATE.get(int.class));
+    }
+
+    @Override
+    protected JMenuItem createMenuItem() {
+        final JMenuItem menuItem = new JMenuItem(name() + " (separate process)");
+        menuItem.addActionListener(new ActionListener() {
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                sendCommand("menu");
+            }
+        });
+        return menuItem;
+    }
+
+    @Override
+    void lifecycleChanged(final String transition) {
+        if (transition.equals("pause") || transition.equals("resume")) {
+            sendCommand(transition);
+        } else if (transition.equals("stop")) {
+            final Thread reaperThread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    shutDown();
+                }
+            }, "Plugin Host Reaper [" + name() + ']');
+            reaperThread.setDaemon(true);
+            reaperThread.start();
+        }
+    }
+
+    long hostExecutions() {
+        return frameExchange == null ? 0 : frameExchange.executions();
+    }
+
+    long hostCpuNanos() {
+        return frameExchange == null ? 0 : frameExchange.cpuNanos();
+    }
+
+    long hostAllocatedBytes() {
+        return frameExchange == null ? 0 : frameExchange.allocatedBytes();
+    }
+
+    private List<String> createCommand() {
+        final List<String> command = new ArrayList<String>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        command.add("-Xmx" + GlobalProperty.ISOLATED_PLUGIN_HEAP_MEGABYTES.get(int.class) + 'm');
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PluginHost.class.getName());
+        command.add(archiveAddress.toExternalForm());
+        command.add(exchangeFile.getPath());
+        command.add(libraryDirectory.getPath());
+        command.add(propertiesFile.getPath());
+        return command;
+    }
+
+    private void startControlReader() {
+        final Thread readerThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    final BufferedReader controlReader =
+                            new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+                    String reply;
+                    while ((reply = controlReader.readLine()) != null) {
+                        if (reply.equals("consumed")) {
+                            awaitingFrame.set(false);
+                        } else if (reply.equals("started")) {
+                            startLatch.countDown();
+                        } else if (reply.startsWith("failed")) {
+                            failure = reply.substring("failed".length()).trim();
+                            startLatch.countDown();
+                        }
+                    }
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    if (failure == null && startLatch.getCount() > 0) {
+                        failure = "The plugin host exited unexpectedly.";
+                    }
+                    startLatch.countDown();
+                }
+            }
+        }, "Plugin Host Reader [" + name() + ']');
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    private void startErrorPump() {
+        final Thread pumpThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    StreamUtility.transfer(process.getErrorStream(), Channels.newChannel(System.err));
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "Plugin Host Output [" + name() + ']');
+        pumpThread.setDaemon(true);
+        pumpThread.start();
+    }
+
+    private synchronized void sendCommand(final String command) {
+        if (controlWriter != null) {
+            controlWriter.println(command);
+            controlWriter.flush();
+        }
+    }
+
+    private boolean isAlive() {
+        try {
+            process.exitValue();
+            return false;
+        } catch (final IllegalThreadStateException expected) {
+            return true;
+        }
+    }
+
+    private void shutDown() {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        sendCommand("stop");
+        final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(GlobalProperty.PLUGIN_LOAD_TIMEOUT_SECONDS.get(int.class));
+        while (isAlive() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (final InterruptedException e) {
+                break;
+            }
+        }
+        destroy();
+    }
+
+    private void destroy() {
+        if (process != null) {
+            process.destroy();
+        }
+        synchronized (this) {
+            if (controlWriter != null) {
+                controlWriter.close();
+                controlWriter = null;
+            }
+        }
+        if (frameExchange != null) {
+            try {
+                frameExchange.close();
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+        deleteFile(exchangeFile);
+        deleteFile(propertiesFile);
+    }
+
+    private static void deleteFile(final File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
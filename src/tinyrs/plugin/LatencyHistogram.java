@@ -0,0 +1,70 @@
+package tinyrs.plugin;
+
+public final class LatencyHistogram {
+
+    private static final int UNIT_SHIFT = 10;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAXIMUM_EXPONENT = 40;
+    private final long[] counts = new long[(MAXIMUM_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT];
+    private long count;
+    private long totalNanos;
+    private long maximumNanos;
+
+    synchronized void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts[bucketIndex(value)]++;
+        count++;
+        totalNanos += value;
+        maximumNanos = Math.max(maximumNanos, value);
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    public synchronized long meanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    public synchronized long maximumNanos() {
+        return maximumNanos;
+    }
+
+    public synchronized long percentileNanos(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(maximumNanos, bucketUpperBoundNanos(i));
+            }
+        }
+        return maximumNanos;
+    }
+
+    private static int bucketIndex(final long nanos) {
+        final long units = nanos >> UNIT_SHIFT;
+        if (units < SUB_BUCKET_COUNT) {
+            return (int) units;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(units);
+        if (exponent > MAXIMUM_EXPONENT) {
+            return (MAXIMUM_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT - 1;
+        }
+        final int subBucket = (int) (units >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long bucketUpperBoundNanos(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return (long) (index + 1) << UNIT_SHIFT;
+        }
+        final int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        final int subBucket = index % SUB_BUCKET_COUNT;
+        return (long) (SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS) << UNIT_SHIFT;
+    }
+}
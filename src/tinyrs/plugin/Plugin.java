@@ -1,14 +1,44 @@
 package tinyrs.plugin;
 
 import java.applet.Applet;
+import java.net.URL;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JMenuItem;
 import javax.swing.SwingUtilities;
 
+import tinyrs.GlobalProperty;
+import tinyrs.utils.FlightRecorderEvent;
+import tinyrs.utils.ThreadUtility;
+
 public abstract class Plugin {
 
     static final ThreadGroup pluginThreads = new ThreadGroup("Plugin Threads");
+    private static final String[] EVENT_CATEGORY = { "tinyrs", "Plugins" };
+    private static final FlightRecorderEvent executionEvent = new FlightRecorderEvent(
+            "tinyrs.PluginExecution",
+            "Plugin Execution",
+            EVENT_CATEGORY,
+            new String[] { "plugin", "sleepMillis" },
+            new Class<?>[] { String.class, long.class });
+    private static final FlightRecorderEvent lifecycleEvent = new FlightRecorderEvent(
+            "tinyrs.PluginLifecycle",
+            "Plugin Lifecycle",
+            EVENT_CATEGORY,
+            new String[] { "plugin", "transition" },
+            new Class<?>[] { String.class, String.class });
+    private static final long MAXIMUM_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
     private final Object initializeLock = new Object();
+    private final PluginUsage usage = new PluginUsage();
+    private volatile PluginBudget budget = PluginBudget.UNLIMITED;
+    private volatile long tickPhaseNanos = -1;
+    private volatile ClientEventBus eventBus;
+    private volatile SharedFrame sharedFrame;
+    private volatile URL archiveAddress;
+    private volatile URL sourceAddress;
+    private long expectedStartNanos;
+    private long lastEndNanos;
     private final AtomicBoolean pauseSignal = new AtomicBoolean();
     private final Object pauseLock = new Object();
     private JMenuItem menuItem;
@@ -17,6 +47,7 @@ public abstract class Plugin {
     private boolean running;
     private volatile boolean shouldStop;
     private boolean paused;
+    private ScheduledRun scheduledRun;
 
     public final void initialize(final Applet applet) throws PluginException {
         synchronized (initializeLock) {
@@ -39,6 +70,7 @@ public abstract class Plugin {
             }
             initializePlugin(applet);
             initialized = true;
+            changeLifecycle("initialize");
         }
     }
 
@@ -49,22 +81,112 @@ public abstract class Plugin {
             } else if (isStarted()) {
                 throw new IllegalStateException("The plugin has been started already.");
             }
-            new PluginThread().start();
+            final int phaseMillis = tickPhaseMillis();
+            if (phaseMillis >= 0) {
+                tickPhaseNanos = TimeUnit.MILLISECONDS.toNanos(phaseMillis % TickClock.TICK_MILLIS);
+            } else if (GlobalProperty.TICK_ALIGNED_PLUGINS.get(boolean.class)) {
+                tickPhaseNanos = TickClock.assignPhaseNanos();
+            }
+            running = true;
+            if (PluginScheduler.isEnabled()) {
+                synchronized (pauseLock) {
+                    scheduledRun = new ScheduledRun();
+                    scheduledRun.schedule(System.nanoTime());
+                }
+            } else {
+                new PluginThread().start();
+            }
             started = true;
+            changeLifecycle("start");
         }
     }
 
     public final void stop() {
-        shouldStop = true;
+        synchronized (pauseLock) {
+            shouldStop = true;
+            if (scheduledRun != null && !scheduledRun.executing) {
+                scheduledRun.cancel();
+                scheduledRun = null;
+                finish();
+            }
+            pauseLock.notifyAll();
+        }
     }
 
     public final void pause() {
-        pauseSignal.compareAndSet(false, true);
+        synchronized (pauseLock) {
+            if (!pauseSignal.compareAndSet(false, true)) {
+                return;
+            }
+            if (scheduledRun != null && !scheduledRun.executing && !paused) {
+                scheduledRun.cancel();
+                pauseSignal.set(false);
+                paused = true;
+                changeLifecycle("pause");
+            }
+            pauseLock.notifyAll();
+        }
     }
 
     public final void resume() {
         synchronized (pauseLock) {
-            pauseLock.notify();
+            pauseSignal.set(false);
+            if (paused && scheduledRun != null && !shouldStop) {
+                paused = false;
+                changeLifecycle("resume");
+                expectedStartNanos = 0;
+                scheduledRun.schedule(System.nanoTime());
+            } else {
+                paused = false;
+            }
+            pauseLock.notifyAll();
+        }
+    }
+
+    public final PluginUsage getUsage() {
+        return usage;
+    }
+
+    public final PluginBudget getBudget() {
+        return budget;
+    }
+
+    final void setBudget(final PluginBudget budget) {
+        this.budget = budget;
+    }
+
+    final void setEventBus(final ClientEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    final void setSharedFrame(final SharedFrame sharedFrame) {
+        this.sharedFrame = sharedFrame;
+    }
+
+    final void setArchiveAddress(final URL archiveAddress) {
+        this.archiveAddress = archiveAddress;
+    }
+
+    final URL getArchiveAddress() {
+        return archiveAddress;
+    }
+
+    final void setSourceAddress(final URL sourceAddress) {
+        this.sourceAddress = sourceAddress;
+    }
+
+    final URL getSourceAddress() {
+        return sourceAddress;
+    }
+
+    final boolean awaitStop(final long timeoutNanos) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        synchronized (pauseLock) {
+            long remainingNanos;
+            while (running && (remainingNanos = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(pauseLock, remainingNanos);
+            }
+            return !running;
         }
     }
 
@@ -88,6 +210,10 @@ public abstract class Plugin {
         return paused;
     }
 
+    public final long getTickPhaseNanos() {
+        return tickPhaseNanos;
+    }
+
     protected String name() {
         return getClass().getSimpleName();
     }
@@ -95,10 +221,144 @@ public abstract class Plugin {
     protected void initializePlugin(final Applet applet) throws PluginException {
     }
 
+    protected final ClientEventBus getEventBus() {
+        return eventBus;
+    }
+
+    protected final SharedFrame getSharedFrame() {
+        return sharedFrame;
+    }
+
+    protected int tickPhaseMillis() {
+        return -1;
+    }
+
     protected abstract long execute();
 
     protected abstract JMenuItem createMenuItem();
 
+    void lifecycleChanged(final String transition) {
+    }
+
+    private void changeLifecycle(final String transition) {
+        if (lifecycleEvent.isEnabled()) {
+            lifecycleEvent.commit(name(), transition);
+        }
+        lifecycleChanged(transition);
+    }
+
+    private long executeOnce() {
+        final long startCpuNanos = ThreadUtility.currentThreadCpuTime();
+        final long startAllocatedBytes = ThreadUtility.currentThreadAllocatedBytes();
+        final long startNanos = System.nanoTime();
+        if (expectedStartNanos != 0) {
+            usage.recordDelay(startNanos - expectedStartNanos);
+            usage.recordSleepInterval(startNanos - lastEndNanos);
+        }
+        final FlightRecorderEvent.Instance event = executionEvent.begin();
+        final long sleepMillis = execute();
+        if (event.isEnabled()) {
+            event.commit(name(), sleepMillis);
+        }
+        lastEndNanos = System.nanoTime();
+        final long executionNanos = lastEndNanos - startNanos;
+        final long backoffMillis = usage.record(
+                startCpuNanos == -1 ? -1 : ThreadUtility.currentThreadCpuTime() - startCpuNanos,
+                startAllocatedBytes == -1 ? -1 : ThreadUtility.currentThreadAllocatedBytes() - startAllocatedBytes,
+                executionNanos,
+                sleepMillis,
+                budget);
+        long delayMillis = Math.max(0, sleepMillis);
+        if (backoffMillis > MAXIMUM_BACKOFF_MILLIS) {
+            System.err.println("The plugin " + name() + " exceeded its budget of " + budget + ". Pausing...");
+            pause();
+        } else {
+            delayMillis += backoffMillis;
+        }
+        final long delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        final long phaseNanos = tickPhaseNanos;
+        if (phaseNanos == -1) {
+            expectedStartNanos = lastEndNanos + delayNanos;
+        } else {
+            final long previousTickNanos = expectedStartNanos == 0
+                    ? TickClock.nextTick(startNanos, phaseNanos) - TickClock.TICK_NANOS
+                    : expectedStartNanos;
+            final long scheduledNanos = previousTickNanos + delayNanos;
+            expectedStartNanos = TickClock.nextTick(Math.max(scheduledNanos, lastEndNanos), phaseNanos);
+        }
+        return expectedStartNanos;
+    }
+
+    private void finish() {
+        synchronized (pauseLock) {
+            running = false;
+            pauseLock.notifyAll();
+        }
+        changeLifecycle("stop");
+        SwingUtilities.invokeLater(new Runnable() {
+
+            @Override
+            public void run() {
+                getMenuItem().setEnabled(false);
+            }
+        });
+    }
+
+    private final class ScheduledRun {
+
+        private Future<?> future;
+        private int generation;
+        private boolean executing;
+
+        private void schedule(final long runNanos) {
+            final int scheduledGeneration = ++generation;
+            future = PluginScheduler.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    ScheduledRun.this.run(scheduledGeneration);
+                }
+            }, Math.max(0, runNanos - System.nanoTime()));
+        }
+
+        private void cancel() {
+            generation++;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        private void run(final int scheduledGeneration) {
+            synchronized (pauseLock) {
+                if (scheduledGeneration != generation) {
+                    return;
+                }
+                executing = true;
+            }
+            long nextRunNanos = 0;
+            boolean failed = true;
+            try {
+                nextRunNanos = executeOnce();
+                failed = false;
+            } catch (final RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                synchronized (pauseLock) {
+                    executing = false;
+                    if (failed || shouldStop) {
+                        scheduledRun = null;
+                        finish();
+                    } else if (pauseSignal.compareAndSet(true, false)) {
+                        paused = true;
+                        changeLifecycle("pause");
+                    } else {
+                        schedule(nextRunNanos);
+                    }
+                }
+            }
+        }
+    }
+
     private final class PluginThread extends Thread {
 
         private PluginThread() {
@@ -108,46 +368,41 @@ public abstract class Plugin {
 
         @Override
         public void run() {
-            running = true;
             try {
                 while (!shouldStop) {
-                    if (pauseSignal.compareAndSet(true, false)) {
-                        paused = true;
-                        synchronized (pauseLock) {
+                    synchronized (pauseLock) {
+                        if (pauseSignal.compareAndSet(true, false)) {
+                            paused = true;
+                            changeLifecycle("pause");
                             try {
-                                pauseLock.wait();
+                                while (paused && !shouldStop) {
+                                    pauseLock.wait();
+                                }
                             } catch (final InterruptedException e) {
                                 e.printStackTrace();
                             } finally {
                                 paused = false;
                             }
+                            changeLifecycle("resume");
+                            expectedStartNanos = 0;
+                            continue;
                         }
                     }
-                    final long sleepMillis = execute();
-                    if (sleepMillis > 0) {
-                        sleepUninterruptibly(sleepMillis);
-                    }
+                    sleepUnlessSignalled(executeOnce());
                 }
             } finally {
-                running = false;
-                SwingUtilities.invokeLater(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        getMenuItem().setEnabled(false);
-                    }
-                });
+                finish();
             }
         }
 
-        private void sleepUninterruptibly(final long millis) {
-            final long startTime = System.currentTimeMillis();
-            try {
-                Thread.sleep(millis);
-            } catch (final InterruptedException swallowed) {
-                final long remainingMillis = millis - Math.max(1, System.currentTimeMillis() - startTime);
-                if (remainingMillis > 0) {
-                    sleepUninterruptibly(remainingMillis);
+        private void sleepUnlessSignalled(final long deadline) {
+            synchronized (pauseLock) {
+                long remainingNanos;
+                while (!shouldStop && !pauseSignal.get() && (remainingNanos = deadline - System.nanoTime()) > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(pauseLock, remainingNanos);
+                    } catch (final InterruptedException swallowed) {
+                    }
                 }
             }
         }
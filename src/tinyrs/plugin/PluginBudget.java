@@ -0,0 +1,38 @@
+package tinyrs.plugin;
+
+public final class PluginBudget {
+
+    public static final PluginBudget UNLIMITED = new PluginBudget(0, 0);
+    private final int cpuPercent;
+    private final long allocationBytesPerSecond;
+
+    public PluginBudget(final int cpuPercent, final long allocationBytesPerSecond) {
+        if (cpuPercent < 0 || allocationBytesPerSecond < 0) {
+            throw new IllegalArgumentException("A budget cannot be negative.");
+        }
+        this.cpuPercent = cpuPercent;
+        this.allocationBytesPerSecond = allocationBytesPerSecond;
+    }
+
+    public int cpuPercent() {
+        return cpuPercent;
+    }
+
+    public long allocationBytesPerSecond() {
+        return allocationBytesPerSecond;
+    }
+
+    public boolean isUnlimited() {
+        return cpuPercent == 0 && allocationBytesPerSecond == 0;
+    }
+
+    @Override
+    public String toString() {
+        if (isUnlimited()) {
+            return "unlimited";
+        }
+        return (cpuPercent == 0 ? "-" : cpuPercent + "% CPU")
+                + ", "
+                + (allocationBytesPerSecond == 0 ? "-" : allocationBytesPerSecond / (1024 * 1024) + " MB/s");
+    }
+}
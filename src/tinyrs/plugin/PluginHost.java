@@ -0,0 +1,127 @@
+package tinyrs.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+import tinyrs.GlobalProperty;
+
+public final class PluginHost {
+
+    private static final long REPORT_INTERVAL_MILLIS = 100;
+    private static final long DEMAND_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private PluginHost() {
+    }
+
+    public static void main(final String[] arguments) throws Exception {
+        if (arguments.length < 3) {
+            System.err.println("Usage: PluginHost <plugin archive> <frame exchange file> <library directory> "
+                    + "[properties file]");
+            System.exit(2);
+        }
+        final PrintStream controlStream = System.out;
+        System.setOut(System.err);
+        if (arguments.length > 3) {
+            final InputStream propertiesStream = new FileInputStream(arguments[3]);
+            try {
+                GlobalProperty.readAll(propertiesStream);
+            } finally {
+                propertiesStream.close();
+            }
+        }
+        GlobalProperty.ISOLATED_PLUGINS.setDefault();
+        final FrameExchange frameExchange = new FrameExchange(new File(arguments[1]), false);
+        final PluginManager pluginManager = new PluginManager();
+        pluginManager.setLibraryDirectory(new File(arguments[2]));
+        final Plugin plugin;
+        try {
+            final JarURLConnection pluginConnection = (JarURLConnection) new URL(arguments[0]).openConnection();
+            plugin = pluginManager.createPlugin(pluginConnection);
+            pluginManager.addPlugin(plugin);
+            plugin.initialize(null);
+            plugin.start();
+        } catch (final Exception e) {
+            e.printStackTrace();
+            controlStream.println("failed " + e.getMessage());
+            controlStream.flush();
+            System.exit(1);
+            return;
+        }
+        startReporter(plugin, pluginManager.getSharedFrame(), frameExchange);
+        controlStream.println("started");
+        controlStream.flush();
+        final BufferedReader controlReader = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+        String command;
+        while ((command = controlReader.readLine()) != null) {
+            if (command.equals("frame")) {
+                try {
+                    frameExchange.readFrame(pluginManager.getSharedFrame());
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+                controlStream.println("consumed");
+                controlStream.flush();
+            } else if (command.startsWith("event ")) {
+                final String[] fields = command.split(" ");
+                pluginManager.getEventBus().publish(
+                        ClientEventType.valueOf(fields[1]),
+                        Integer.parseInt(fields[2]),
+                        Integer.parseInt(fields[3]),
+                        Integer.parseInt(fields[4]));
+            } else if (command.equals("pause")) {
+                plugin.pause();
+            } else if (command.equals("resume")) {
+                plugin.resume();
+            } else if (command.equals("menu")) {
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        plugin.getMenuItem().doClick();
+                    }
+                });
+            } else if (command.equals("stop")) {
+                break;
+            }
+        }
+        plugin.stop();
+        plugin.awaitStop(TimeUnit.SECONDS.toNanos(GlobalProperty.PLUGIN_LOAD_TIMEOUT_SECONDS.get(int.class)));
+        frameExchange.writeUsage(plugin.getUsage());
+        frameExchange.close();
+        controlStream.println("stopped");
+        controlStream.flush();
+        System.exit(0);
+    }
+
+    private static void startReporter(
+            final Plugin plugin,
+            final SharedFrame sharedFrame,
+            final FrameExchange frameExchange) {
+        final Thread reporterThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                while (true) {
+                    frameExchange.setDemanded(sharedFrame.isDemanded(DEMAND_WINDOW_NANOS));
+                    frameExchange.writeUsage(plugin.getUsage());
+                    try {
+                        Thread.sleep(REPORT_INTERVAL_MILLIS);
+                    } catch (final InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "Plugin Host Reporter");
+        reporterThread.setDaemon(true);
+        reporterThread.start();
+    }
+}
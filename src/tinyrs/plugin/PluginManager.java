@@ -1,21 +1,65 @@
 package tinyrs.plugin;
 
 import java.applet.Applet;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.net.JarURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.text.SimpleDateFormat;
 import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
+import tinyrs.Application;
+import tinyrs.GlobalProperty;
+import tinyrs.gui.PopupBuilder;
+import tinyrs.utils.FileUtility;
+import tinyrs.utils.HttpCache;
+import tinyrs.utils.StartupTimeline;
+
 public final class PluginManager {
 
+    private static final String LATENCY_FILE_NAME_FORMAT = "'plugin-latency-'yyyyMMdd-HHmmss-SSS'.tsv'";
+    private static final CollectionChecker collectionChecker = new CollectionChecker();
     private final Set<Plugin> plugins = Collections.newSetFromMap(new ConcurrentHashMap<Plugin, Boolean>());
+    private final ConcurrentMap<Plugin, CountDownLatch> starters =
+            new ConcurrentHashMap<Plugin, CountDownLatch>();
+    private final Properties budgets = new Properties();
+    private final ClientEventBus eventBus = new ClientEventBus(1024);
+    private final SharedFrame sharedFrame = new SharedFrame();
+    private File libraryDirectory = new File(System.getProperty("java.io.tmpdir"), "tinyrs-libraries");
+    private SharedLibraries sharedLibraries;
+    private File hostDirectory = new File(System.getProperty("java.io.tmpdir"), "tinyrs-plugin-hosts");
+    private volatile HttpCache httpCache;
     private JMenu pluginMenu;
+    private Applet gameApplet;
 
     public PluginManager() {
         SwingUtilities.invokeLater(new Runnable() {
@@ -24,11 +68,436 @@ public final class PluginManager {
             public void run() {
                 pluginMenu = new JMenu("Plugins");
                 pluginMenu.setVisible(false);
+                final JMenuItem usageItem = new JMenuItem("Show resource usage");
+                usageItem.addActionListener(new ActionListener() {
+
+                    @Override
+                    public void actionPerformed(final ActionEvent e) {
+                        new PopupBuilder()
+                                .withParent(pluginMenu)
+                                .withMessage("<html><pre>" + formatUsage()
+                                        .replace("&", "&amp;")
+                                        .replace("<", "&lt;")
+                                        .replace(">", "&gt;") + "</pre></html>")
+                                .withTitle("Plugin Resource Usage")
+                                .withMessageType(JOptionPane.INFORMATION_MESSAGE)
+                                .showMessage();
+                    }
+                });
+                final JMenuItem latencyItem = new JMenuItem("Show latency statistics");
+                latencyItem.addActionListener(new ActionListener() {
+
+                    @Override
+                    public void actionPerformed(final ActionEvent e) {
+                        new PopupBuilder()
+                                .withParent(pluginMenu)
+                                .withMessage("<html><pre>" + formatLatencies()
+                                        .replace("&", "&amp;")
+                                        .replace("<", "&lt;")
+                                        .replace(">", "&gt;") + "</pre></html>")
+                                .withTitle("Plugin Latency Statistics")
+                                .withMessageType(JOptionPane.INFORMATION_MESSAGE)
+                                .showMessage();
+                    }
+                });
+                final JMenuItem exportItem = new JMenuItem("Export latency statistics");
+                exportItem.addActionListener(new ActionListener() {
+
+                    @Override
+                    public void actionPerformed(final ActionEvent e) {
+                        final PopupBuilder popupBuilder = new PopupBuilder()
+                                .withParent(pluginMenu)
+                                .withTitle("Plugin Latency Statistics");
+                        try {
+                            final File statisticsFile =
+                                    writeLatencies(new File(Application.storageDirectory(), "statistics"));
+                            popupBuilder
+                                    .withMessage("The latency statistics were written to " + statisticsFile + '.')
+                                    .withMessageType(JOptionPane.INFORMATION_MESSAGE);
+                        } catch (final IOException exception) {
+                            exception.printStackTrace();
+                            popupBuilder
+                                    .withMessage("Could not write the latency statistics.")
+                                    .withMessageType(JOptionPane.ERROR_MESSAGE);
+                        }
+                        popupBuilder.showMessage();
+                    }
+                });
+                exportItem.setEnabled(Application.isStorageDirectoryAvailable());
+                final JMenuItem reloadItem = new JMenuItem("Reload plugins");
+                reloadItem.addActionListener(new ActionListener() {
+
+                    @Override
+                    public void actionPerformed(final ActionEvent e) {
+                        reloadItem.setEnabled(false);
+                        final Thread reloaderThread = new Thread(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                try {
+                                    showReloadResult(reloadPlugins());
+                                } finally {
+                                    SwingUtilities.invokeLater(new Runnable() {
+
+                                        @Override
+                                        public void run() {
+                                            reloadItem.setEnabled(true);
+                                        }
+                                    });
+                                }
+                            }
+                        }, "Plugin Reloader");
+                        reloaderThread.setDaemon(true);
+                        reloaderThread.start();
+                    }
+                });
+                pluginMenu.add(usageItem);
+                pluginMenu.add(latencyItem);
+                pluginMenu.add(exportItem);
+                pluginMenu.add(reloadItem);
+                pluginMenu.addSeparator();
             }
         });
     }
 
+    public synchronized void setLibraryDirectory(final File libraryDirectory) {
+        if (sharedLibraries != null) {
+            throw new IllegalStateException("Shared libraries have already been loaded.");
+        }
+        this.libraryDirectory = libraryDirectory;
+    }
+
+    public synchronized void setHostDirectory(final File hostDirectory) {
+        this.hostDirectory = hostDirectory;
+    }
+
+    public void setHttpCache(final HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    private synchronized SharedLibraries getSharedLibraries() throws IOException {
+        if (sharedLibraries == null) {
+            sharedLibraries = new SharedLibraries(libraryDirectory, PluginManager.class.getClassLoader());
+        }
+        return sharedLibraries;
+    }
+
+    public synchronized void loadBudgets(final File budgetFile) throws IOException {
+        final InputStream stream = new FileInputStream(budgetFile);
+        try {
+            budgets.clear();
+            budgets.load(stream);
+        } finally {
+            stream.close();
+        }
+        for (final Plugin plugin : plugins) {
+            plugin.setBudget(getBudget(plugin));
+        }
+    }
+
+    public String formatUsage() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format(
+                Locale.ROOT,
+                "%-20s %-8s %10s %10s %7s %10s %10s %10s %8s %8s %8s %6s  %s%n",
+                "Plugin",
+                "State",
+                "Runs",
+                "CPU (ms)",
+                "CPU %",
+                "Alloc (MB)",
+                "MB/s",
+                "Throttled",
+                "Lag (ms)",
+                "Max (ms)",
+                "Jitter",
+                "Phase",
+                "Budget"));
+        for (final Plugin plugin : plugins) {
+            final PluginUsage usage = plugin.getUsage();
+            builder.append(String.format(
+                    Locale.ROOT,
+                    "%-20s %-8s %10d %10d %7.1f %10.1f %10.2f %10d %8.2f %8.2f %8.2f %6s  %s%n",
+                    plugin.name(),
+                    plugin.isPaused() ? "paused" : plugin.isRunning() ? "running" : "stopped",
+                    usage.executions(),
+                    TimeUnit.NANOSECONDS.toMillis(usage.cpuNanos()),
+                    usage.cpuPercent(),
+                    usage.allocatedBytes() / (1024.0 * 1024.0),
+                    usage.allocationBytesPerSecond() / (1024.0 * 1024.0),
+                    usage.throttledMillis(),
+                    usage.meanDelayNanos() / 1e6,
+                    usage.maximumDelayNanos() / 1e6,
+                    usage.jitterNanos() / 1e6,
+                    plugin.getTickPhaseNanos() == -1 ? "-" : TimeUnit.NANOSECONDS.toMillis(plugin.getTickPhaseNanos()),
+                    plugin.getBudget()));
+            if (plugin instanceof IsolatedPlugin) {
+                final IsolatedPlugin isolatedPlugin = (IsolatedPlugin) plugin;
+                builder.append(String.format(
+                        Locale.ROOT,
+                        "%-20s %-8s %10d %10d %7s %10.1f%n",
+                        "  (host process)",
+                        "",
+                        isolatedPlugin.hostExecutions(),
+                        TimeUnit.NANOSECONDS.toMillis(isolatedPlugin.hostCpuNanos()),
+                        "-",
+                        isolatedPlugin.hostAllocatedBytes() / (1024.0 * 1024.0)));
+            }
+        }
+        return builder.toString();
+    }
+
+    public String formatLatencies() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format(
+                Locale.ROOT,
+                "%-20s %10s %9s %9s %9s %9s %9s %10s %10s %10s%n",
+                "Plugin",
+                "Runs",
+                "Overruns",
+                "Exec p50",
+                "Exec p90",
+                "Exec p99",
+                "Exec max",
+                "Sleep p50",
+                "Sleep p99",
+                "Sleep max"));
+        for (final Plugin plugin : plugins) {
+            final PluginUsage usage = plugin.getUsage();
+            final LatencyHistogram executionTimes = usage.executionTimes();
+            final LatencyHistogram sleepIntervals = usage.sleepIntervals();
+            builder.append(String.format(
+                    Locale.ROOT,
+                    "%-20s %10d %9d %9.2f %9.2f %9.2f %9.2f %10.1f %10.1f %10.1f%n",
+                    plugin.name(),
+                    executionTimes.count(),
+                    usage.overruns(),
+                    executionTimes.percentileNanos(50) / 1e6,
+                    executionTimes.percentileNanos(90) / 1e6,
+                    executionTimes.percentileNanos(99) / 1e6,
+                    executionTimes.maximumNanos() / 1e6,
+                    sleepIntervals.percentileNanos(50) / 1e6,
+                    sleepIntervals.percentileNanos(99) / 1e6,
+                    sleepIntervals.maximumNanos() / 1e6));
+        }
+        builder.append(String.format(Locale.ROOT, "%nAll times are in milliseconds.%n"));
+        return builder.toString();
+    }
+
+    public File writeLatencies(final File statisticsDirectory) throws IOException {
+        if (!statisticsDirectory.isDirectory() && !statisticsDirectory.mkdirs()) {
+            throw new IOException("Could not create the statistics directory.");
+        }
+        final File statisticsFile = new File(
+                statisticsDirectory,
+                new SimpleDateFormat(LATENCY_FILE_NAME_FORMAT, Locale.ROOT).format(new Date()));
+        final File temporaryFile = new File(statisticsDirectory, statisticsFile.getName() + ".tmp");
+        final PrintWriter printWriter =
+                new PrintWriter(new OutputStreamWriter(new FileOutputStream(temporaryFile), "UTF-8"));
+        try {
+            printWriter.println("plugin\truns\toverruns"
+                    + "\texecute_mean_us\texecute_p50_us\texecute_p90_us\texecute_p99_us\texecute_max_us"
+                    + "\tinterval_mean_us\tinterval_p50_us\tinterval_p90_us\tinterval_p99_us\tinterval_max_us");
+            for (final Plugin plugin : plugins) {
+                final PluginUsage usage = plugin.getUsage();
+                printWriter.println(plugin.name()
+                        + '\t' + usage.executionTimes().count()
+                        + '\t' + usage.overruns()
+                        + formatHistogram(usage.executionTimes())
+                        + formatHistogram(usage.sleepIntervals()));
+            }
+            printWriter.flush();
+            if (printWriter.checkError()) {
+                throw new IOException("Could not write the latency statistics.");
+            }
+        } finally {
+            printWriter.close();
+        }
+        FileUtility.replace(temporaryFile, statisticsFile);
+        return statisticsFile;
+    }
+
+    private static String formatHistogram(final LatencyHistogram histogram) {
+        return "\t" + TimeUnit.NANOSECONDS.toMicros(histogram.meanNanos())
+                + '\t' + TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(50))
+                + '\t' + TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(90))
+                + '\t' + TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(99))
+                + '\t' + TimeUnit.NANOSECONDS.toMicros(histogram.maximumNanos());
+    }
+
     public void loadPlugin(final JarURLConnection pluginConnection) throws IOException, PluginException {
+        addPlugin(createPlugin(pluginConnection));
+    }
+
+    public Future<Boolean> unloadPlugin(final Plugin plugin) throws IOException {
+        return releasePlugin(plugin, stopPlugin(plugin));
+    }
+
+    public Future<Boolean> reloadPlugin(final Plugin plugin) throws IOException, PluginException {
+        final URL archiveAddress = plugin.getArchiveAddress();
+        if (archiveAddress == null) {
+            throw new IllegalArgumentException("The plugin was not loaded from an archive.");
+        } else if (!plugins.contains(plugin)) {
+            throw new IllegalArgumentException("The plugin is not loaded.");
+        }
+        URL pluginAddress = archiveAddress;
+        final URL sourceAddress = plugin.getSourceAddress();
+        final HttpCache pluginCache = httpCache;
+        if (sourceAddress != null && pluginCache != null) {
+            final File archiveFile = pluginCache.get(sourceAddress, BulkPluginLoader.getTimeoutMillis() / 2);
+            pluginAddress = new URL("jar:" + archiveFile.toURI().toURL() + "!/");
+        }
+        final JarURLConnection pluginConnection = (JarURLConnection) pluginAddress.openConnection();
+        pluginConnection.setConnectTimeout(BulkPluginLoader.getTimeoutMillis());
+        pluginConnection.setReadTimeout(BulkPluginLoader.getTimeoutMillis());
+        pluginConnection.setUseCaches(false);
+        final JarFile pluginArchive = pluginConnection.getJarFile();
+        final Plugin reloadedPlugin;
+        try {
+            reloadedPlugin = createPlugin(pluginConnection);
+        } finally {
+            pluginArchive.close();
+        }
+        reloadedPlugin.setSourceAddress(sourceAddress);
+        final boolean stopped;
+        try {
+            stopped = stopPlugin(plugin);
+        } catch (final RuntimeException e) {
+            discardPlugin(reloadedPlugin);
+            throw e;
+        }
+        if (!stopped) {
+            synchronized (plugins) {
+                plugins.add(plugin);
+            }
+            discardPlugin(reloadedPlugin);
+            throw new PluginException("The plugin did not stop in time and has been kept loaded.");
+        }
+        try {
+            return releasePlugin(plugin, true);
+        } finally {
+            addPlugin(reloadedPlugin);
+        }
+    }
+
+    public Map<String, Exception> reloadPlugins() {
+        final Plugin[] loadedPlugins = plugins.toArray(new Plugin[0]);
+        final Map<String, Exception> failures = new LinkedHashMap<String, Exception>();
+        final Map<String, Future<Boolean>> collections = new LinkedHashMap<String, Future<Boolean>>();
+        collectionChecker.beginBatch();
+        try {
+            for (int i = 0; i < loadedPlugins.length; i++) {
+                final Plugin plugin = loadedPlugins[i];
+                loadedPlugins[i] = null;
+                if (plugin.getArchiveAddress() == null) {
+                    continue;
+                }
+                try {
+                    collections.put(plugin.name(), reloadPlugin(plugin));
+                } catch (final Exception e) {
+                    e.printStackTrace();
+                    failures.put(plugin.name(), e);
+                }
+            }
+        } finally {
+            collectionChecker.endBatch();
+        }
+        for (final Map.Entry<String, Future<Boolean>> collection : collections.entrySet()) {
+            try {
+                if (!collection.getValue().get()) {
+                    failures.put(collection.getKey(), new PluginException(
+                            "The previous version was reloaded but is still reachable, so its memory was not freed."));
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (final ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        return failures;
+    }
+
+    private boolean stopPlugin(final Plugin plugin) {
+        synchronized (plugins) {
+            if (!plugins.remove(plugin)) {
+                throw new IllegalArgumentException("The plugin is not loaded.");
+            }
+        }
+        plugin.stop();
+        try {
+            final long timeoutNanos =
+                    TimeUnit.SECONDS.toNanos(GlobalProperty.PLUGIN_LOAD_TIMEOUT_SECONDS.get(int.class));
+            final long deadline = System.nanoTime() + timeoutNanos;
+            final CountDownLatch starter = starters.get(plugin);
+            final boolean started = starter == null || starter.await(timeoutNanos, TimeUnit.NANOSECONDS);
+            return started && plugin.awaitStop(Math.max(0, deadline - System.nanoTime()));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Future<Boolean> releasePlugin(final Plugin plugin, final boolean stopped) throws IOException {
+        final ClassLoader classLoader = plugin.getClass().getClassLoader();
+        final boolean ownClassLoader = classLoader != PluginManager.class.getClassLoader();
+        if (ownClassLoader) {
+            eventBus.unsubscribeAll(classLoader);
+        }
+        PluginScheduler.purge();
+        final JMenuItem menuItem = plugin.getMenuItem();
+        if (menuItem != null) {
+            SwingUtilities.invokeLater(new Runnable() {
+
+                @Override
+                public void run() {
+                    pluginMenu.remove(menuItem);
+                    pluginMenu.validate();
+                    pluginMenu.repaint();
+                }
+            });
+        }
+        if (!stopped) {
+            System.err.println("The plugin " + plugin.name() + " did not stop in time and was not closed.");
+            final FutureTask<Boolean> failedTask = new FutureTask<Boolean>(new Runnable() {
+
+                @Override
+                public void run() {
+                }
+            }, Boolean.FALSE);
+            failedTask.run();
+            return failedTask;
+        }
+        discardPlugin(plugin);
+        return collectionChecker.watch(plugin.name(), ownClassLoader ? classLoader : plugin);
+    }
+
+    static void discardPlugin(final Plugin plugin) throws IOException {
+        final ClassLoader classLoader = plugin.getClass().getClassLoader();
+        if (classLoader != PluginManager.class.getClassLoader() && classLoader instanceof Closeable) {
+            ((Closeable) classLoader).close();
+        }
+    }
+
+    private void showReloadResult(final Map<String, Exception> failures) {
+        final StringBuilder message = new StringBuilder();
+        if (failures.isEmpty()) {
+            message.append("Every plugin has been reloaded.");
+        } else {
+            message.append("The following plugins could not be reloaded cleanly:");
+            for (final Map.Entry<String, Exception> failure : failures.entrySet()) {
+                message.append('\n').append(failure.getKey()).append(": ").append(failure.getValue().getMessage());
+            }
+        }
+        new PopupBuilder()
+                .withParent(pluginMenu)
+                .withMessage(message.toString())
+                .withTitle("Reload Plugins")
+                .withMessageType(failures.isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE)
+                .showMessage();
+    }
+
+    Plugin createPlugin(final JarURLConnection pluginConnection) throws IOException, PluginException {
         final Attributes pluginAttributes = pluginConnection.getMainAttributes();
         if (pluginAttributes == null) {
             throw new PluginArchiveException("The plugin archive is missing the manifest file or main attributes.");
@@ -37,7 +506,37 @@ public final class PluginManager {
         if (pluginClassName == null) {
             throw new PluginArchiveException("The manifest file is missing the Plugin-Class attribute.");
         }
-        final ClassLoader classLoader = URLClassLoader.newInstance(new URL[] { pluginConnection.getJarFileURL() });
+        if (isIsolated(pluginClassName)) {
+            final Plugin plugin;
+            synchronized (this) {
+                plugin = new IsolatedPlugin(
+                        pluginConnection.getURL(),
+                        pluginClassName,
+                        hostDirectory,
+                        libraryDirectory);
+            }
+            plugin.setArchiveAddress(pluginConnection.getURL());
+            return plugin;
+        }
+        final String libraryAddresses = pluginAttributes.getValue("Plugin-Libraries");
+        final ClassLoader parentClassLoader;
+        if (libraryAddresses == null || libraryAddresses.trim().isEmpty()) {
+            parentClassLoader = PluginManager.class.getClassLoader();
+        } else {
+            final SharedLibraries libraries = getSharedLibraries();
+            for (final String libraryAddress : libraryAddresses.trim().split("\\s+")) {
+                final URL libraryUrl;
+                try {
+                    libraryUrl = new URL(pluginConnection.getJarFileURL(), libraryAddress);
+                } catch (final MalformedURLException e) {
+                    throw new PluginArchiveException("The library address " + libraryAddress + " is malformed.", e);
+                }
+                libraries.load(libraryUrl, BulkPluginLoader.getTimeoutMillis());
+            }
+            parentClassLoader = libraries.getClassLoader();
+        }
+        final ClassLoader classLoader =
+                URLClassLoader.newInstance(new URL[] { pluginConnection.getJarFileURL() }, parentClassLoader);
         final Plugin plugin;
         try {
             plugin = classLoader.loadClass(pluginClassName).asSubclass(Plugin.class).newInstance();
@@ -53,49 +552,135 @@ public final class PluginManager {
         } catch (final Exception e) {
             throw new PluginException("Failed to create an instance of the plugin.", e);
         }
+        plugin.setArchiveAddress(pluginConnection.getURL());
+        return plugin;
+    }
+
+    private static boolean isIsolated(final String pluginClassName) {
+        for (final String isolatedClassName : GlobalProperty.ISOLATED_PLUGINS.get().trim().split("[\\s,]+")) {
+            if (isolatedClassName.equals(pluginClassName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void addPlugin(final Plugin plugin) {
+        plugin.setBudget(getBudget(plugin));
+        plugin.setEventBus(eventBus);
+        plugin.setSharedFrame(sharedFrame);
         plugins.add(plugin);
+        if (gameApplet != null) {
+            startPlugin(plugin, gameApplet);
+        }
     }
 
-    public void startPlugins(final Applet gameApplet) {
+    public synchronized void startPlugins(final Applet gameApplet) {
+        this.gameApplet = gameApplet;
         for (final Plugin plugin : plugins) {
             if (!plugin.isStarted()) {
-                new PluginStarterThread(plugin, gameApplet).start();
+                startPlugin(plugin, gameApplet);
             }
         }
     }
 
+    private PluginBudget getBudget(final Plugin plugin) {
+        final int cpuPercent = parseBudget(
+                budgets.getProperty(plugin.name() + ".cpuPercent"),
+                GlobalProperty.PLUGIN_CPU_BUDGET_PERCENT.get(int.class));
+        final int allocationMegabytes = parseBudget(
+                budgets.getProperty(plugin.name() + ".allocationMegabytesPerSecond"),
+                GlobalProperty.PLUGIN_ALLOCATION_BUDGET_MEGABYTES.get(int.class));
+        return new PluginBudget(cpuPercent, allocationMegabytes * 1024L * 1024L);
+    }
+
+    private static int parseBudget(final String value, final int defaultValue) {
+        if (value == null) {
+            return Math.max(0, defaultValue);
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (final NumberFormatException e) {
+            System.err.println("Invalid plugin budget " + value + ". Using the default instead...");
+            return Math.max(0, defaultValue);
+        }
+    }
+
+    private void startPlugin(final Plugin plugin, final Applet gameApplet) {
+        final PluginStarter starter = new PluginStarter(plugin, gameApplet);
+        starters.put(plugin, starter.finished);
+        if (PluginScheduler.isEnabled()) {
+            PluginScheduler.execute(starter);
+        } else {
+            final Thread starterThread =
+                    new Thread(Plugin.pluginThreads, starter, "Plugin Starter [" + plugin.name() + ']');
+            starterThread.setDaemon(true);
+            starterThread.start();
+        }
+    }
+
+    public ClientEventBus getEventBus() {
+        return eventBus;
+    }
+
+    public SharedFrame getSharedFrame() {
+        return sharedFrame;
+    }
+
     public JMenu getPluginMenu() {
         return pluginMenu;
     }
 
-    private final class PluginStarterThread extends Thread {
+    private final class PluginStarter implements Runnable {
 
         private final Plugin plugin;
         private final Applet gameApplet;
+        private final CountDownLatch finished = new CountDownLatch(1);
 
-        private PluginStarterThread(final Plugin plugin, final Applet gameApplet) {
-            super(Plugin.pluginThreads, "Plugin Starter [" + plugin.name() + ']');
+        private PluginStarter(final Plugin plugin, final Applet gameApplet) {
             this.plugin = plugin;
             this.gameApplet = gameApplet;
-            setDaemon(true);
         }
 
         @Override
         public void run() {
+            try {
+                start();
+            } finally {
+                starters.remove(plugin, finished);
+                finished.countDown();
+            }
+        }
+
+        private void start() {
+            if (!plugins.contains(plugin)) {
+                return;
+            }
+            final StartupTimeline.Phase startPhase = StartupTimeline.begin("plugin " + plugin.name());
             try {
                 if (!plugin.isInitialized()) {
                     plugin.initialize(gameApplet);
                 }
-                plugin.start();
+                synchronized (plugins) {
+                    if (!plugins.contains(plugin)) {
+                        return;
+                    }
+                    plugin.start();
+                }
             } catch (final PluginException e) {
                 e.printStackTrace();
                 plugins.remove(plugin);
                 return;
+            } finally {
+                startPhase.end();
             }
             SwingUtilities.invokeLater(new Runnable() {
 
                 @Override
                 public void run() {
+                    if (!plugins.contains(plugin)) {
+                        return;
+                    }
                     pluginMenu.add(plugin.getMenuItem());
                     pluginMenu.validate();
                     pluginMenu.repaint();
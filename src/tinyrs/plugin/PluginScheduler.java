@@ -0,0 +1,59 @@
+package tinyrs.plugin;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import tinyrs.GlobalProperty;
+
+final class PluginScheduler {
+
+    private static final ScheduledThreadPoolExecutor executor = createExecutor();
+    private static final ExecutorService workerExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(Plugin.pluginThreads, runnable, "Plugin Worker");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private PluginScheduler() {
+    }
+
+    static boolean isEnabled() {
+        return GlobalProperty.SHARED_PLUGIN_SCHEDULER.get(boolean.class);
+    }
+
+    static Future<?> schedule(final Runnable task, final long delayNanos) {
+        return executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void execute(final Runnable task) {
+        workerExecutor.execute(task);
+    }
+
+    static void purge() {
+        executor.purge();
+    }
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                Math.max(1, GlobalProperty.PLUGIN_SCHEDULER_THREADS.get(int.class)),
+                new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(Plugin.pluginThreads, runnable, "Plugin Scheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+}
@@ -0,0 +1,133 @@
+package tinyrs.plugin;
+
+import java.util.concurrent.TimeUnit;
+
+public final class PluginUsage {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private long executions;
+    private long cpuNanos;
+    private long allocatedBytes;
+    private long throttledMillis;
+    private long windowStartNanos = System.nanoTime();
+    private long windowCpuNanos;
+    private long windowAllocatedBytes;
+    private double cpuPercent;
+    private double allocationBytesPerSecond;
+    private long delaySamples;
+    private long totalDelayNanos;
+    private long maximumDelayNanos;
+    private long lastDelayNanos;
+    private double jitterNanos;
+    private long overruns;
+    private final LatencyHistogram executionTimes = new LatencyHistogram();
+    private final LatencyHistogram sleepIntervals = new LatencyHistogram();
+
+    synchronized long record(
+            final long executionCpuNanos,
+            final long executionAllocatedBytes,
+            final long executionNanos,
+            final long sleepMillis,
+            final PluginBudget budget) {
+        executions++;
+        executionTimes.record(executionNanos);
+        if (sleepMillis > 0 && executionNanos > TimeUnit.MILLISECONDS.toNanos(sleepMillis)) {
+            overruns++;
+        }
+        cpuNanos += Math.max(0, executionCpuNanos);
+        allocatedBytes += Math.max(0, executionAllocatedBytes);
+        windowCpuNanos += Math.max(0, executionCpuNanos);
+        windowAllocatedBytes += Math.max(0, executionAllocatedBytes);
+        roll(System.nanoTime());
+        final long elapsedNanos = executionNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, sleepMillis));
+        long backoffNanos = 0;
+        if (budget.cpuPercent() > 0 && executionCpuNanos > 0) {
+            backoffNanos = Math.max(backoffNanos, executionCpuNanos * 100 / budget.cpuPercent() - elapsedNanos);
+        }
+        if (budget.allocationBytesPerSecond() > 0 && executionAllocatedBytes > 0) {
+            final long allowedNanos = (long) (executionAllocatedBytes
+                    * (double) TimeUnit.SECONDS.toNanos(1)
+                    / budget.allocationBytesPerSecond());
+            backoffNanos = Math.max(backoffNanos, allowedNanos - elapsedNanos);
+        }
+        final long backoffMillis = TimeUnit.NANOSECONDS.toMillis(backoffNanos);
+        throttledMillis += backoffMillis;
+        return backoffMillis;
+    }
+
+    synchronized void recordDelay(final long delayNanos) {
+        if (delaySamples > 0) {
+            jitterNanos += (Math.abs(delayNanos - lastDelayNanos) - jitterNanos) / 16;
+        }
+        delaySamples++;
+        totalDelayNanos += delayNanos;
+        maximumDelayNanos = Math.max(maximumDelayNanos, delayNanos);
+        lastDelayNanos = delayNanos;
+    }
+
+    void recordSleepInterval(final long intervalNanos) {
+        sleepIntervals.record(intervalNanos);
+    }
+
+    public synchronized long executions() {
+        return executions;
+    }
+
+    public synchronized long cpuNanos() {
+        return cpuNanos;
+    }
+
+    public synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized long throttledMillis() {
+        return throttledMillis;
+    }
+
+    public synchronized double cpuPercent() {
+        roll(System.nanoTime());
+        return cpuPercent;
+    }
+
+    public synchronized double allocationBytesPerSecond() {
+        roll(System.nanoTime());
+        return allocationBytesPerSecond;
+    }
+
+    public synchronized long meanDelayNanos() {
+        return delaySamples == 0 ? 0 : totalDelayNanos / delaySamples;
+    }
+
+    public synchronized long maximumDelayNanos() {
+        return maximumDelayNanos;
+    }
+
+    public synchronized long jitterNanos() {
+        return (long) jitterNanos;
+    }
+
+    public synchronized long overruns() {
+        return overruns;
+    }
+
+    public LatencyHistogram executionTimes() {
+        return executionTimes;
+    }
+
+    public LatencyHistogram sleepIntervals() {
+        return sleepIntervals;
+    }
+
+    private void roll(final long nowNanos) {
+        final long windowNanos = nowNanos - windowStartNanos;
+        if (windowNanos < WINDOW_NANOS) {
+            return;
+        }
+        cpuPercent = 100.0 * windowCpuNanos / windowNanos;
+        allocationBytesPerSecond = windowAllocatedBytes * (double) TimeUnit.SECONDS.toNanos(1) / windowNanos;
+        windowStartNanos = nowNanos;
+        windowCpuNanos = 0;
+        windowAllocatedBytes = 0;
+    }
+}
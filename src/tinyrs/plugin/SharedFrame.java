@@ -0,0 +1,55 @@
+package tinyrs.plugin;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class SharedFrame {
+
+    private static final int BUFFER_COUNT = 3;
+    private final FrameSnapshot[] buffers = new FrameSnapshot[BUFFER_COUNT];
+    private final AtomicReference<FrameSnapshot> front = new AtomicReference<FrameSnapshot>();
+    private volatile long lastDemandNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+    private long nextSequence = 1;
+
+    public SharedFrame() {
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            buffers[i] = new FrameSnapshot();
+        }
+    }
+
+    public FrameSnapshot acquire() {
+        lastDemandNanos = System.nanoTime();
+        while (true) {
+            final FrameSnapshot snapshot = front.get();
+            if (snapshot == null) {
+                return null;
+            }
+            snapshot.pins.incrementAndGet();
+            if (front.get() == snapshot) {
+                return snapshot;
+            }
+            snapshot.pins.decrementAndGet();
+        }
+    }
+
+    public boolean isDemanded(final long withinNanos) {
+        return System.nanoTime() - lastDemandNanos <= withinNanos;
+    }
+
+    public synchronized long update(
+            final int width,
+            final int height,
+            final int[] pixels,
+            final int offset,
+            final int scanlineStride) {
+        final FrameSnapshot currentFront = front.get();
+        for (final FrameSnapshot buffer : buffers) {
+            if (buffer != currentFront && buffer.pins.get() == 0) {
+                final long sequence = nextSequence++;
+                buffer.write(sequence, width, height, pixels, offset, scanlineStride);
+                front.set(buffer);
+                return sequence;
+            }
+        }
+        return -1;
+    }
+}
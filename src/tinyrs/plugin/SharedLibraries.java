@@ -0,0 +1,92 @@
+package tinyrs.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import tinyrs.utils.FileUtility;
+import tinyrs.utils.StreamUtility;
+
+final class SharedLibraries {
+
+    private final File directory;
+    private final LibraryClassLoader classLoader;
+    private final Set<String> loadedHashes = new HashSet<String>();
+    private final Map<String, String> addressHashes = new HashMap<String, String>();
+
+    SharedLibraries(final File directory, final ClassLoader parent) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the shared library directory.");
+        }
+        this.directory = directory;
+        classLoader = new LibraryClassLoader(parent);
+    }
+
+    ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    synchronized int size() {
+        return loadedHashes.size();
+    }
+
+    void load(final URL libraryAddress, final int timeoutMillis) throws IOException {
+        final String address = libraryAddress.toExternalForm();
+        synchronized (this) {
+            if (addressHashes.containsKey(address)) {
+                return;
+            }
+        }
+        final File temporaryFile = File.createTempFile("library", ".tmp", directory);
+        try {
+            final URLConnection connection = libraryAddress.openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            final InputStream inputStream = connection.getInputStream();
+            try {
+                final FileOutputStream outputStream = new FileOutputStream(temporaryFile);
+                try {
+                    StreamUtility.transfer(inputStream, outputStream.getChannel());
+                } finally {
+                    outputStream.close();
+                }
+            } finally {
+                inputStream.close();
+            }
+            final String hash = FileUtility.hash(temporaryFile);
+            final File libraryFile = new File(directory, hash + ".jar");
+            if (!libraryFile.exists()) {
+                FileUtility.replace(temporaryFile, libraryFile);
+            }
+            synchronized (this) {
+                addressHashes.put(address, hash);
+                if (loadedHashes.add(hash)) {
+                    classLoader.addLibrary(libraryFile.toURI().toURL());
+                }
+            }
+        } finally {
+            if (temporaryFile.exists() && !temporaryFile.delete()) {
+                temporaryFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static final class LibraryClassLoader extends URLClassLoader {
+
+        private LibraryClassLoader(final ClassLoader parent) {
+            super(new URL[0], parent);
+        }
+
+        private void addLibrary(final URL libraryAddress) {
+            addURL(libraryAddress);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package tinyrs.plugin;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class TickClock {
+
+    public static final int TICK_MILLIS = 600;
+    public static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+    private static final double GOLDEN_RATIO_CONJUGATE = 0.6180339887498949;
+    private static final AtomicInteger assignedPhases = new AtomicInteger();
+    private static volatile long originNanos = System.nanoTime();
+
+    private TickClock() {
+    }
+
+    static void synchronize(final long tickStartNanos) {
+        originNanos = tickStartNanos;
+    }
+
+    public static long nextTick(final long notBeforeNanos, final long phaseNanos) {
+        final long tickOriginNanos = originNanos + phaseNanos;
+        final long elapsedNanos = notBeforeNanos - tickOriginNanos;
+        long ticks = elapsedNanos / TICK_NANOS;
+        if (ticks * TICK_NANOS < elapsedNanos) {
+            ticks++;
+        }
+        return tickOriginNanos + ticks * TICK_NANOS;
+    }
+
+    static long assignPhaseNanos() {
+        final double fraction = assignedPhases.getAndIncrement() * GOLDEN_RATIO_CONJUGATE % 1;
+        return (long) (fraction * TICK_NANOS);
+    }
+}
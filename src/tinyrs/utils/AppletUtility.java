@@ -2,10 +2,12 @@ package tinyrs.utils;
 
 import java.applet.AppletContext;
 import java.applet.AppletStub;
-import java.net.InetAddress;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -13,7 +15,16 @@ import java.util.regex.Pattern;
 
 public final class AppletUtility {
 
+    public static final int GAME_PORT = 43594;
     private static final Pattern PARAMETER_PATTERN = Pattern.compile("<param name=\"(.*?)\" value=\"(.*?)\">");
+    private static final String PARAMETER_TAG_PREFIX = "<param";
+    private static final String PARAMETER_NAME_PREFIX = "<param name=\"";
+    private static final String PARAMETER_VALUE_SEPARATOR = "\" value=\"";
+    private static final String PARAMETER_TAG_SUFFIX = "\">";
+    private static final int INCOMPLETE_TAG = -1;
+    private static final int MALFORMED_TAG = -2;
+    private static final int READ_BLOCK_SIZE = 8192;
+    private static final int MAXIMUM_TAG_LENGTH = 4096;
 
     private AppletUtility() {
     }
@@ -22,15 +33,6 @@ public final class AppletUtility {
         return "oldschool" + world + ".runescape.com";
     }
 
-    public static boolean isValidWorld(final int world) {
-        try {
-            InetAddress.getByName(getHostForWorld(world));
-            return true;
-        } catch (final UnknownHostException expected) {
-            return false;
-        }
-    }
-
     public static URL createWorldAddress(final int world, final String path) {
         try {
             return new URL("http", getHostForWorld(world), path);
@@ -48,6 +50,120 @@ public final class AppletUtility {
         return parameters;
     }
 
+    public static Map<String, String> readParameters(final InputStream pageStream) throws IOException {
+        final Map<String, String> parameters = new HashMap<String, String>();
+        final Reader pageReader = new InputStreamReader(pageStream, "ISO-8859-1");
+        final char[] buffer = new char[READ_BLOCK_SIZE + MAXIMUM_TAG_LENGTH];
+        int length = 0;
+        int charactersRead;
+        while ((charactersRead = pageReader.read(buffer, length, buffer.length - length)) != -1) {
+            length += charactersRead;
+            int position = 0;
+            int carryStart = Math.max(0, length - PARAMETER_TAG_PREFIX.length() + 1);
+            while (true) {
+                final int tagStart = parameters.isEmpty()
+                        ? indexOf(buffer, PARAMETER_TAG_PREFIX, position, length)
+                        : indexOf(buffer, '<', position, length);
+                if (tagStart == -1) {
+                    carryStart = Math.max(position, carryStart);
+                    break;
+                }
+                final boolean parameterTag = tagStart + PARAMETER_TAG_PREFIX.length() > length
+                        || startsWith(buffer, tagStart, PARAMETER_TAG_PREFIX);
+                if (!parameterTag) {
+                    return parameters;
+                }
+                final int tagEnd = readParameter(buffer, tagStart, length, parameters);
+                if (tagEnd >= 0) {
+                    position = tagEnd;
+                } else if (tagEnd == INCOMPLETE_TAG) {
+                    carryStart = length - tagStart > MAXIMUM_TAG_LENGTH ? length : tagStart;
+                    break;
+                } else if (!parameters.isEmpty()) {
+                    return parameters;
+                } else {
+                    position = tagStart + 1;
+                }
+            }
+            System.arraycopy(buffer, carryStart, buffer, 0, length - carryStart);
+            length -= carryStart;
+        }
+        return parameters;
+    }
+
+    private static int readParameter(
+            final char[] buffer,
+            final int tagStart,
+            final int end,
+            final Map<String, String> parameters) {
+        final int nameStart = tagStart + PARAMETER_NAME_PREFIX.length();
+        if (nameStart > end) {
+            return startsWith(buffer, tagStart, PARAMETER_NAME_PREFIX.substring(0, end - tagStart))
+                    ? INCOMPLETE_TAG
+                    : MALFORMED_TAG;
+        } else if (!startsWith(buffer, tagStart, PARAMETER_NAME_PREFIX)) {
+            return MALFORMED_TAG;
+        }
+        final int nameEnd = indexOnLine(buffer, PARAMETER_VALUE_SEPARATOR, nameStart, end);
+        if (nameEnd < 0) {
+            return nameEnd;
+        }
+        final int valueStart = nameEnd + PARAMETER_VALUE_SEPARATOR.length();
+        final int valueEnd = indexOnLine(buffer, PARAMETER_TAG_SUFFIX, valueStart, end);
+        if (valueEnd < 0) {
+            return valueEnd;
+        }
+        parameters.put(
+                new String(buffer, nameStart, nameEnd - nameStart),
+                new String(buffer, valueStart, valueEnd - valueStart));
+        return valueEnd + PARAMETER_TAG_SUFFIX.length();
+    }
+
+    private static int indexOnLine(final char[] buffer, final String target, final int start, final int end) {
+        final char firstCharacter = target.charAt(0);
+        for (int i = start; i < end; i++) {
+            final char character = buffer[i];
+            if (character == '\n' || character == '\r' || character == '\u0085') {
+                return MALFORMED_TAG;
+            } else if (character != firstCharacter) {
+                continue;
+            } else if (i + target.length() > end) {
+                return INCOMPLETE_TAG;
+            } else if (startsWith(buffer, i, target)) {
+                return i;
+            }
+        }
+        return INCOMPLETE_TAG;
+    }
+
+    private static int indexOf(final char[] buffer, final char character, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == character) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(final char[] buffer, final String target, final int start, final int end) {
+        final char firstCharacter = target.charAt(0);
+        for (int i = start; i <= end - target.length(); i++) {
+            if (buffer[i] == firstCharacter && startsWith(buffer, i, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(final char[] buffer, final int offset, final String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static AppletStub createActiveStub(final URL codeBase, final Map<String, String> parameters) {
         return new AppletStub() {
 
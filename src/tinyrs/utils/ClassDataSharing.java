@@ -0,0 +1,206 @@
+package tinyrs.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class ClassDataSharing {
+
+    public static final int NOT_RELAUNCHED = Integer.MIN_VALUE;
+    private static final String RELAUNCHED_PROPERTY = "tinyrs.relaunched";
+    private static final String REVISION_FILE_PROPERTY = "tinyrs.archiveRevisionFile";
+    private static final String[] INHERITED_OPTION_PREFIXES = { "-Xmx", "-Xms", "-Xss", "-D" };
+    private static final int DYNAMIC_ARCHIVE_JAVA_VERSION = 13;
+    private static final Pattern ARCHIVE_PATTERN = Pattern.compile("(-?\\d+)-.+\\.jsa");
+    private final File archiveDirectory;
+
+    public ClassDataSharing(final File archiveDirectory) throws IOException {
+        if (!archiveDirectory.isDirectory() && !archiveDirectory.mkdirs()) {
+            throw new IOException("Could not create the class data sharing directory.");
+        }
+        this.archiveDirectory = archiveDirectory;
+    }
+
+    public static boolean isSupported() {
+        if (System.getProperty(RELAUNCHED_PROPERTY) != null || javaFeatureVersion() < DYNAMIC_ARCHIVE_JAVA_VERSION) {
+            return false;
+        }
+        for (final String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("-Xshare")
+                    || argument.startsWith("-XX:SharedArchiveFile")
+                    || argument.startsWith("-XX:ArchiveClassesAtExit")) {
+                return false;
+            }
+        }
+        for (final String classPathEntry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!classPathEntry.endsWith(".jar") || !new File(classPathEntry).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public File getArchiveFile(final int revision) {
+        return new File(archiveDirectory, revision + "-" + System.getProperty("java.version") + ".jsa");
+    }
+
+    public int relaunch(final Class<?> mainClass, final int revision, final String[] arguments) {
+        final File archiveFile = getArchiveFile(revision);
+        final List<String> command = new ArrayList<String>();
+        command.add(javaLauncher().getPath());
+        for (final String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (isInheritedOption(argument)) {
+                command.add(argument);
+            }
+        }
+        command.add("-D" + RELAUNCHED_PROPERTY + "=true");
+        File recordingFile = null;
+        File revisionFile = null;
+        try {
+            if (archiveFile.isFile()) {
+                command.add("-XX:SharedArchiveFile=" + archiveFile.getPath());
+            } else {
+                recordingFile = File.createTempFile("recording-", ".jsa.tmp", archiveDirectory);
+                revisionFile = new File(archiveDirectory, recordingFile.getName() + ".revision");
+                command.add("-XX:ArchiveClassesAtExit=" + recordingFile.getPath());
+                command.add("-D" + REVISION_FILE_PROPERTY + '=' + revisionFile.getPath());
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(mainClass.getName());
+            command.addAll(Arrays.asList(arguments));
+            final ProcessBuilder processBuilder = new ProcessBuilder(command);
+            ProcessBuilder.class.getMethod("inheritIO").invoke(processBuilder);
+            final Process process = processBuilder.start();
+            final int exitCode = waitFor(process);
+            if (recordingFile != null) {
+                keepRecording(recordingFile, revisionFile);
+            }
+            return exitCode;
+        } catch (final Exception e) {
+            System.err.println("Failed to relaunch with a shared class archive. Continuing without one...");
+            e.printStackTrace();
+            deleteFile(recordingFile);
+            deleteFile(revisionFile);
+            return NOT_RELAUNCHED;
+        }
+    }
+
+    public static void recordLaunchedRevision(final int revision) {
+        final String revisionFileName = System.getProperty(REVISION_FILE_PROPERTY);
+        if (revisionFileName == null) {
+            return;
+        }
+        try {
+            final OutputStream revisionStream = new FileOutputStream(revisionFileName);
+            try {
+                revisionStream.write(Integer.toString(revision).getBytes("US-ASCII"));
+            } finally {
+                revisionStream.close();
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void evictExcept(final Collection<Integer> keptRevisions) {
+        final File[] archiveFiles = archiveDirectory.listFiles();
+        if (archiveFiles == null) {
+            return;
+        }
+        final String currentSuffix = "-" + System.getProperty("java.version") + ".jsa";
+        for (final File archiveFile : archiveFiles) {
+            final Matcher matcher = ARCHIVE_PATTERN.matcher(archiveFile.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            if (!keptRevisions.contains(Integer.parseInt(matcher.group(1)))
+                    || !archiveFile.getName().endsWith(currentSuffix)) {
+                if (!archiveFile.delete()) {
+                    System.err.println("Could not evict the shared class archive " + archiveFile + '.');
+                }
+            }
+        }
+    }
+
+    private void keepRecording(final File recordingFile, final File revisionFile) {
+        try {
+            if (!revisionFile.isFile() || !recordingFile.isFile() || recordingFile.length() == 0) {
+                return;
+            }
+            final InputStream revisionStream = new FileInputStream(revisionFile);
+            final int revision;
+            try {
+                revision = Integer.parseInt(new String(StreamUtility.readBytes(revisionStream), "US-ASCII").trim());
+            } catch (final NumberFormatException e) {
+                e.printStackTrace();
+                return;
+            } finally {
+                revisionStream.close();
+            }
+            FileUtility.replace(recordingFile, getArchiveFile(revision));
+        } catch (final IOException e) {
+            System.err.println("Could not keep the recorded shared class archive.");
+            e.printStackTrace();
+        } finally {
+            deleteFile(recordingFile);
+            deleteFile(revisionFile);
+        }
+    }
+
+    private static int waitFor(final Process process) {
+        while (true) {
+            try {
+                return process.waitFor();
+            } catch (final InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static boolean isInheritedOption(final String argument) {
+        for (final String optionPrefix : INHERITED_OPTION_PREFIXES) {
+            if (argument.startsWith(optionPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void deleteFile(final File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static File javaLauncher() {
+        final File binDirectory = new File(System.getProperty("java.home"), "bin");
+        if (System.getProperty("os.name", "").startsWith("Windows")) {
+            final File windowedLauncher = new File(binDirectory, "javaw.exe");
+            if (windowedLauncher.isFile()) {
+                return windowedLauncher;
+            }
+        }
+        return new File(binDirectory, "java");
+    }
+
+    private static int javaFeatureVersion() {
+        final String version = System.getProperty("java.specification.version");
+        try {
+            return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+        } catch (final NumberFormatException expected) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package tinyrs.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class FileUtility {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private FileUtility() {
+    }
+
+    public static void replace(final File source, final File destination) throws IOException {
+        if (source.renameTo(destination)) {
+            return;
+        }
+        if (destination.exists() && !destination.delete()) {
+            throw new IOException("Could not delete the file " + destination + '.');
+        }
+        if (!source.renameTo(destination)) {
+            throw new IOException("Could not move the file " + source + " to " + destination + '.');
+        }
+    }
+
+    public static String hash(final File file) throws IOException {
+        final MessageDigest digest = createDigest();
+        final InputStream stream = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[64 * 1024];
+            int bytesRead;
+            while ((bytesRead = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, bytesRead);
+            }
+        } finally {
+            stream.close();
+        }
+        return toHexString(digest.digest());
+    }
+
+    public static String hash(final byte[] bytes) {
+        return toHexString(createDigest().digest(bytes));
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException impossible) {
+            throw new Error(impossible);
+        }
+    }
+
+    private static String toHexString(final byte[] bytes) {
+        final char[] characters = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            characters[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            characters[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(characters);
+    }
+}
@@ -0,0 +1,177 @@
+package tinyrs.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public final class FlightRecorderEvent {
+
+    private static final Instance DISABLED_INSTANCE = new Instance(null);
+    private static final long ENABLED_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Class<?> annotationElementClass = findClass("jdk.jfr.AnnotationElement");
+    private static final Class<?> valueDescriptorClass = findClass("jdk.jfr.ValueDescriptor");
+    private static final Method createMethod = findMethod("jdk.jfr.EventFactory", "create", List.class, List.class);
+    private static final Method newEventMethod = findMethod("jdk.jfr.EventFactory", "newEvent");
+    private static final Method getEventTypeMethod = findMethod("jdk.jfr.EventFactory", "getEventType");
+    private static final Method isEnabledMethod = findMethod("jdk.jfr.EventType", "isEnabled");
+    private static final Method beginMethod = findMethod("jdk.jfr.Event", "begin");
+    private static final Method endMethod = findMethod("jdk.jfr.Event", "end");
+    private static final Method setMethod = findMethod("jdk.jfr.Event", "set", int.class, Object.class);
+    private static final Method commitMethod = findMethod("jdk.jfr.Event", "commit");
+    private final Object eventFactory;
+    private final Object eventType;
+    private volatile boolean enabled;
+    private volatile long enabledCheckNanos;
+
+    public FlightRecorderEvent(
+            final String name,
+            final String label,
+            final String[] category,
+            final String[] fieldNames,
+            final Class<?>[] fieldTypes) {
+        if (fieldNames.length != fieldTypes.length) {
+            throw new IllegalArgumentException("Every field must have exactly one type.");
+        }
+        Object eventFactory = null;
+        Object eventType = null;
+        if (isSupported()) {
+            try {
+                final List<Object> annotations = new ArrayList<Object>();
+                annotations.add(createAnnotation("jdk.jfr.Name", name));
+                annotations.add(createAnnotation("jdk.jfr.Label", label));
+                annotations.add(createAnnotation("jdk.jfr.Category", category));
+                annotations.add(createAnnotation("jdk.jfr.StackTrace", false));
+                final Constructor<?> fieldConstructor = valueDescriptorClass.getConstructor(Class.class, String.class);
+                final List<Object> fields = new ArrayList<Object>();
+                for (int i = 0; i < fieldNames.length; i++) {
+                    fields.add(fieldConstructor.newInstance(fieldTypes[i], fieldNames[i]));
+                }
+                eventFactory = createMethod.invoke(null, annotations, fields);
+                eventType = getEventTypeMethod.invoke(eventFactory);
+            } catch (final Exception e) {
+                e.printStackTrace();
+                eventFactory = null;
+                eventType = null;
+            }
+        }
+        this.eventFactory = eventFactory;
+        this.eventType = eventType;
+        enabled = queryEnabled();
+        enabledCheckNanos = System.nanoTime();
+    }
+
+    public static boolean isSupported() {
+        return createMethod != null
+                && newEventMethod != null
+                && getEventTypeMethod != null
+                && isEnabledMethod != null
+                && beginMethod != null
+                && endMethod != null
+                && setMethod != null
+                && commitMethod != null
+                && annotationElementClass != null
+                && valueDescriptorClass != null;
+    }
+
+    public boolean isEnabled() {
+        if (eventType == null) {
+            return false;
+        }
+        final long now = System.nanoTime();
+        if (now - enabledCheckNanos >= ENABLED_CHECK_INTERVAL_NANOS) {
+            enabled = queryEnabled();
+            enabledCheckNanos = now;
+        }
+        return enabled;
+    }
+
+    public Instance begin() {
+        if (!isEnabled()) {
+            return DISABLED_INSTANCE;
+        }
+        try {
+            final Object event = newEventMethod.invoke(eventFactory);
+            beginMethod.invoke(event);
+            return new Instance(event);
+        } catch (final Exception e) {
+            e.printStackTrace();
+            return DISABLED_INSTANCE;
+        }
+    }
+
+    public void commit(final Object... values) {
+        if (isEnabled()) {
+            begin().commit(values);
+        }
+    }
+
+    private boolean queryEnabled() {
+        if (eventType == null) {
+            return false;
+        }
+        try {
+            return (Boolean) isEnabledMethod.invoke(eventType);
+        } catch (final Exception e) {
+            return false;
+        }
+    }
+
+    private static Object createAnnotation(final String annotationClassName, final Object value) throws Exception {
+        return annotationElementClass
+                .getConstructor(Class.class, Object.class)
+                .newInstance(Class.forName(annotationClassName), value);
+    }
+
+    private static Class<?> findClass(final String className) {
+        try {
+            return Class.forName(className);
+        } catch (final ClassNotFoundException expected) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(
+            final String className,
+            final String methodName,
+            final Class<?>... parameterTypes) {
+        final Class<?> declaringClass = findClass(className);
+        if (declaringClass == null) {
+            return null;
+        }
+        try {
+            return declaringClass.getMethod(methodName, parameterTypes);
+        } catch (final NoSuchMethodException expected) {
+            return null;
+        }
+    }
+
+    public static final class Instance {
+
+        private final Object event;
+
+        private Instance(final Object event) {
+            this.event = event;
+        }
+
+        public boolean isEnabled() {
+            return event != null;
+        }
+
+        public void commit(final Object... values) {
+            if (event == null) {
+                return;
+            }
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    setMethod.invoke(event, i, values[i]);
+                }
+                endMethod.invoke(event);
+                commitMethod.invoke(event);
+            } catch (final Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
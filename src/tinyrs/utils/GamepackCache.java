@@ -0,0 +1,152 @@
+package tinyrs.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class GamepackCache {
+
+    private static final Pattern ENTRY_PATTERN = Pattern.compile("(-?\\d+)-([0-9a-f]{40})\\.jar");
+    private final File directory;
+
+    public GamepackCache(final File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the gamepack cache directory.");
+        }
+        this.directory = directory;
+    }
+
+    public File getDownloadFile() {
+        return new File(directory, "download.jar");
+    }
+
+    public synchronized Entry add(final File gamepackFile) throws IOException {
+        final int revision;
+        final JarFile gamepack = new JarFile(gamepackFile);
+        try {
+            revision = VersionUtility.getRevision(gamepack);
+        } finally {
+            gamepack.close();
+        }
+        final File entryFile = new File(directory, revision + "-" + FileUtility.hash(gamepackFile) + ".jar");
+        if (entryFile.exists()) {
+            if (!gamepackFile.delete()) {
+                gamepackFile.deleteOnExit();
+            }
+        } else {
+            FileUtility.replace(gamepackFile, entryFile);
+        }
+        final Entry entry = parseEntry(entryFile);
+        touch(entry);
+        return entry;
+    }
+
+    public synchronized Entry get(final int revision) {
+        for (final Entry entry : entries()) {
+            if (entry.revision == revision) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public synchronized Entry latest() {
+        Entry latestEntry = null;
+        for (final Entry entry : entries()) {
+            if (latestEntry == null || entry.revision > latestEntry.revision) {
+                latestEntry = entry;
+            }
+        }
+        return latestEntry;
+    }
+
+    public synchronized List<Entry> entries() {
+        final List<Entry> entries = new ArrayList<Entry>();
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                final Entry entry = parseEntry(file);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+
+            @Override
+            public int compare(final Entry first, final Entry second) {
+                final long firstUsed = first.file.lastModified();
+                final long secondUsed = second.file.lastModified();
+                return firstUsed > secondUsed ? -1 : firstUsed == secondUsed ? 0 : 1;
+            }
+        });
+        return entries;
+    }
+
+    public synchronized void touch(final Entry entry) {
+        if (!entry.file.setLastModified(System.currentTimeMillis())) {
+            System.err.println("Could not update the last use time of " + entry.file + '.');
+        }
+    }
+
+    public synchronized void evict(final int maximumRevisions, final long maximumBytes) {
+        final Set<Integer> keptRevisions = new HashSet<Integer>();
+        long keptBytes = 0;
+        boolean first = true;
+        for (final Entry entry : entries()) {
+            final long entryBytes = entry.file.length();
+            final boolean withinRevisions = maximumRevisions <= 0
+                    || keptRevisions.contains(entry.revision)
+                    || keptRevisions.size() < maximumRevisions;
+            final boolean withinBytes = maximumBytes <= 0 || keptBytes + entryBytes <= maximumBytes;
+            if (first || withinRevisions && withinBytes) {
+                keptRevisions.add(entry.revision);
+                keptBytes += entryBytes;
+            } else if (!entry.file.delete()) {
+                System.err.println("Could not evict the cached gamepack " + entry.file + '.');
+            }
+            first = false;
+        }
+    }
+
+    private static Entry parseEntry(final File file) {
+        final Matcher matcher = ENTRY_PATTERN.matcher(file.getName());
+        if (!file.isFile() || !matcher.matches()) {
+            return null;
+        }
+        return new Entry(Integer.parseInt(matcher.group(1)), matcher.group(2), file);
+    }
+
+    public static final class Entry {
+
+        private final int revision;
+        private final String hash;
+        private final File file;
+
+        private Entry(final int revision, final String hash, final File file) {
+            this.revision = revision;
+            this.hash = hash;
+            this.file = file;
+        }
+
+        public int revision() {
+            return revision;
+        }
+
+        public String hash() {
+            return hash;
+        }
+
+        public File file() {
+            return file;
+        }
+    }
+}
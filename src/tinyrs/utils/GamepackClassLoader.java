@@ -0,0 +1,291 @@
+package tinyrs.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.security.CodeSource;
+import java.security.SecureClassLoader;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+public final class GamepackClassLoader extends SecureClassLoader implements Closeable {
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAXIMUM_COMMENT_SIZE = 0xffff;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final byte[] STATIC_INITIALIZER_CONSTANT = { 1, 0, 8, '<', 'c', 'l', 'i', 'n', 'i', 't', '>' };
+    private final Set<String> definedPackageNames = new HashSet<String>();
+    private final List<String> definedClassNames = Collections.synchronizedList(new ArrayList<String>());
+    private final Set<String> staticallyInitializedClassNames =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final File gamepackFile;
+    private volatile ByteBuffer gamepackBuffer;
+    private final Map<String, Entry> entries;
+    private final URL gamepackAddress;
+    private final CodeSource codeSource;
+
+    static {
+        try {
+            final Method registerMethod = ClassLoader.class.getDeclaredMethod("registerAsParallelCapable");
+            registerMethod.setAccessible(true);
+            registerMethod.invoke(null);
+        } catch (final NoSuchMethodException expected) {
+        } catch (final Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public GamepackClassLoader(final File gamepackFile, final ClassLoader parent) throws IOException {
+        super(parent);
+        this.gamepackFile = gamepackFile;
+        final RandomAccessFile gamepackAccess = new RandomAccessFile(gamepackFile, "r");
+        try {
+            final FileChannel gamepackChannel = gamepackAccess.getChannel();
+            gamepackBuffer = gamepackChannel.map(FileChannel.MapMode.READ_ONLY, 0, gamepackChannel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        } finally {
+            gamepackAccess.close();
+        }
+        entries = Collections.unmodifiableMap(readCentralDirectory(gamepackBuffer.duplicate()));
+        gamepackAddress = gamepackFile.toURI().toURL();
+        codeSource = new CodeSource(gamepackAddress, (Certificate[]) null);
+    }
+
+    public GamepackClassLoader(final File gamepackFile) throws IOException {
+        this(gamepackFile, GamepackClassLoader.class.getClassLoader());
+    }
+
+    public File getGamepackFile() {
+        return gamepackFile;
+    }
+
+    public List<String> definedClassNames() {
+        synchronized (definedClassNames) {
+            return new ArrayList<String>(definedClassNames);
+        }
+    }
+
+    public boolean isSafeToInitialize(final Class<?> type) {
+        for (Class<?> current = type; current != null && current.getClassLoader() == this;
+                current = current.getSuperclass()) {
+            if (staticallyInitializedClassNames.contains(current.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<Future<Class<?>>> warmUp(final Collection<String> classNames, final ExecutorService executor) {
+        final List<Future<Class<?>>> classFutures = new ArrayList<Future<Class<?>>>(classNames.size());
+        for (final String className : classNames) {
+            classFutures.add(executor.submit(new Callable<Class<?>>() {
+
+                @Override
+                public Class<?> call() throws ClassNotFoundException {
+                    final Class<?> type = loadClass(className);
+                    if (isSafeToInitialize(type)) {
+                        Class.forName(className, true, GamepackClassLoader.this);
+                    }
+                    return type;
+                }
+            }));
+        }
+        return classFutures;
+    }
+
+    @Override
+    public void close() {
+        gamepackBuffer = null;
+    }
+
+    @Override
+    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+        final Entry entry = entries.get(name.replace('.', '/') + ".class");
+        if (entry == null) {
+            throw new ClassNotFoundException(name);
+        }
+        final byte[] classBytes;
+        try {
+            classBytes = readEntry(entry);
+        } catch (final IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+        final int packageIndex = name.lastIndexOf('.');
+        if (packageIndex != -1) {
+            definePackageIfAbsent(name.substring(0, packageIndex));
+        }
+        if (StreamUtility.indexOf(classBytes, STATIC_INITIALIZER_CONSTANT) != -1) {
+            staticallyInitializedClassNames.add(name);
+        }
+        final Class<?> definedClass = defineClass(name, classBytes, 0, classBytes.length, codeSource);
+        definedClassNames.add(name);
+        return definedClass;
+    }
+
+    @Override
+    protected URL findResource(final String name) {
+        if (!entries.containsKey(name)) {
+            return null;
+        }
+        try {
+            return new URL("jar:" + gamepackAddress + "!/" + name);
+        } catch (final MalformedURLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected Enumeration<URL> findResources(final String name) {
+        final URL resourceAddress = findResource(name);
+        if (resourceAddress == null) {
+            return Collections.enumeration(Collections.<URL>emptyList());
+        }
+        return Collections.enumeration(Collections.singletonList(resourceAddress));
+    }
+
+    private void definePackageIfAbsent(final String packageName) {
+        synchronized (definedPackageNames) {
+            if (!definedPackageNames.add(packageName)) {
+                return;
+            }
+            try {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            } catch (final IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    private byte[] readEntry(final Entry entry) throws IOException {
+        final ByteBuffer mappedBuffer = gamepackBuffer;
+        if (mappedBuffer == null) {
+            throw new IOException("The gamepack class loader has been closed.");
+        }
+        final ByteBuffer buffer = mappedBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(entry.headerOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for " + entry.name + '.');
+        }
+        final int dataOffset = entry.headerOffset
+                + 30
+                + (buffer.getShort(entry.headerOffset + 26) & 0xffff)
+                + (buffer.getShort(entry.headerOffset + 28) & 0xffff);
+        final byte[] compressedBytes = new byte[entry.compressedSize];
+        buffer.position(dataOffset);
+        buffer.get(compressedBytes);
+        if (entry.method == STORED) {
+            return compressedBytes;
+        }
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressedBytes);
+            final byte[] entryBytes = new byte[entry.size];
+            int inflatedBytes = 0;
+            while (inflatedBytes < entryBytes.length && !inflater.finished()) {
+                final int count = inflater.inflate(entryBytes, inflatedBytes, entryBytes.length - inflatedBytes);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflatedBytes += count;
+            }
+            if (inflatedBytes != entryBytes.length) {
+                throw new ZipException("Truncated data for " + entry.name + '.');
+            }
+            return entryBytes;
+        } catch (final DataFormatException e) {
+            throw new ZipException("Invalid compressed data for " + entry.name + '.');
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Map<String, Entry> readCentralDirectory(final ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        final int limit = buffer.limit();
+        int endOffset = -1;
+        final int searchStart = Math.max(0, limit - END_OF_CENTRAL_DIRECTORY_SIZE - MAXIMUM_COMMENT_SIZE);
+        for (int offset = limit - END_OF_CENTRAL_DIRECTORY_SIZE; offset >= searchStart; offset--) {
+            if (buffer.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                endOffset = offset;
+                break;
+            }
+        }
+        if (endOffset == -1) {
+            throw new ZipException("The gamepack is not a valid archive.");
+        }
+        final int entryCount = buffer.getShort(endOffset + 10) & 0xffff;
+        int offset = buffer.getInt(endOffset + 16);
+        final Map<String, Entry> entries = new HashMap<String, Entry>(entryCount * 2);
+        final byte[] nameBytes = new byte[MAXIMUM_COMMENT_SIZE];
+        for (int i = 0; i < entryCount; i++) {
+            if (buffer.getInt(offset) != CENTRAL_DIRECTORY_SIGNATURE) {
+                throw new ZipException("Invalid central directory entry.");
+            }
+            final int method = buffer.getShort(offset + 10) & 0xffff;
+            final int compressedSize = buffer.getInt(offset + 20);
+            final int size = buffer.getInt(offset + 24);
+            final int nameLength = buffer.getShort(offset + 28) & 0xffff;
+            final int extraLength = buffer.getShort(offset + 30) & 0xffff;
+            final int commentLength = buffer.getShort(offset + 32) & 0xffff;
+            final int headerOffset = buffer.getInt(offset + 42);
+            if (compressedSize < 0 || size < 0 || headerOffset < 0) {
+                throw new ZipException("Archives larger than 2 GB are not supported.");
+            }
+            if (method != STORED && method != DEFLATED) {
+                throw new ZipException("Unsupported compression method " + method + '.');
+            }
+            buffer.position(offset + 46);
+            buffer.get(nameBytes, 0, nameLength);
+            final String name = new String(nameBytes, 0, nameLength, "UTF-8");
+            entries.put(name, new Entry(name, method, compressedSize, size, headerOffset));
+            offset += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private static final class Entry {
+
+        private final String name;
+        private final int method;
+        private final int compressedSize;
+        private final int size;
+        private final int headerOffset;
+
+        private Entry(
+                final String name,
+                final int method,
+                final int compressedSize,
+                final int size,
+                final int headerOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.headerOffset = headerOffset;
+        }
+    }
+}
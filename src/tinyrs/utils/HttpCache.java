@@ -0,0 +1,135 @@
+package tinyrs.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class HttpCache {
+
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("\\.[A-Za-z0-9]{1,8}$");
+    private final File directory;
+
+    public HttpCache(final File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the HTTP cache directory.");
+        }
+        this.directory = directory;
+    }
+
+    public static boolean isCacheable(final URL address) {
+        final String protocol = address.getProtocol();
+        return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol);
+    }
+
+    public File get(final URL address, final int timeoutMillis) throws IOException {
+        if (!isCacheable(address)) {
+            throw new IllegalArgumentException("Only HTTP and HTTPS addresses can be cached.");
+        }
+        final String key = FileUtility.hash(address.toExternalForm().getBytes("UTF-8"));
+        final Matcher extensionMatcher = EXTENSION_PATTERN.matcher(address.getPath());
+        final File dataFile = new File(directory, key + (extensionMatcher.find() ? extensionMatcher.group() : ".bin"));
+        final File metadataFile = new File(directory, key + ".properties");
+        final Properties metadata = readMetadata(metadataFile);
+        final boolean cached = metadata != null && dataFile.isFile();
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) address.openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            if (cached) {
+                final String entityTag = metadata.getProperty("ETag");
+                if (entityTag != null) {
+                    connection.setRequestProperty("If-None-Match", entityTag);
+                }
+                final long lastModified = Long.parseLong(metadata.getProperty("Last-Modified", "0"));
+                if (lastModified > 0) {
+                    connection.setIfModifiedSince(lastModified);
+                }
+            }
+            try {
+                final int responseCode = connection.getResponseCode();
+                if (cached && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    return dataFile;
+                }
+                if (responseCode != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Unexpected response code " + responseCode + " from " + address + '.');
+                }
+                final File temporaryFile = File.createTempFile(key, ".tmp", directory);
+                try {
+                    final InputStream inputStream = connection.getInputStream();
+                    try {
+                        final FileOutputStream outputStream = new FileOutputStream(temporaryFile);
+                        try {
+                            StreamUtility.transfer(inputStream, outputStream.getChannel());
+                        } finally {
+                            outputStream.close();
+                        }
+                    } finally {
+                        inputStream.close();
+                    }
+                    if (!metadataFile.delete() && metadataFile.exists()) {
+                        throw new IOException("Could not invalidate the cached copy of " + address + '.');
+                    }
+                    FileUtility.replace(temporaryFile, dataFile);
+                } finally {
+                    if (temporaryFile.exists() && !temporaryFile.delete()) {
+                        temporaryFile.deleteOnExit();
+                    }
+                }
+                writeMetadata(metadataFile, address, connection);
+                return dataFile;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (final IOException e) {
+            if (!cached) {
+                throw e;
+            }
+            System.err.println("Could not revalidate " + address + ". Using the cached copy...");
+            e.printStackTrace();
+            return dataFile;
+        }
+    }
+
+    private static Properties readMetadata(final File metadataFile) throws IOException {
+        if (!metadataFile.isFile()) {
+            return null;
+        }
+        final Properties metadata = new Properties();
+        final InputStream stream = new FileInputStream(metadataFile);
+        try {
+            metadata.load(stream);
+        } finally {
+            stream.close();
+        }
+        return metadata;
+    }
+
+    private void writeMetadata(
+            final File metadataFile,
+            final URL address,
+            final HttpURLConnection connection) throws IOException {
+        final Properties metadata = new Properties();
+        metadata.setProperty("URL", address.toExternalForm());
+        final String entityTag = connection.getHeaderField("ETag");
+        if (entityTag != null) {
+            metadata.setProperty("ETag", entityTag);
+        }
+        metadata.setProperty("Last-Modified", Long.toString(connection.getLastModified()));
+        final File temporaryFile = new File(directory, metadataFile.getName() + ".tmp");
+        final OutputStream stream = new FileOutputStream(temporaryFile);
+        try {
+            metadata.store(stream, null);
+        } finally {
+            stream.close();
+        }
+        FileUtility.replace(temporaryFile, metadataFile);
+    }
+}
@@ -0,0 +1,82 @@
+package tinyrs.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public final class ParameterCache {
+
+    private final File directory;
+
+    public ParameterCache(final File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the parameter cache directory.");
+        }
+        this.directory = directory;
+    }
+
+    public Map<String, String> load(final int world, final int revision) throws IOException {
+        final File parameterFile = getParameterFile(world, revision);
+        if (!parameterFile.isFile()) {
+            evictExcept(world, revision);
+            return null;
+        }
+        final Properties properties = new Properties();
+        final InputStream stream = new FileInputStream(parameterFile);
+        try {
+            properties.load(stream);
+        } finally {
+            stream.close();
+        }
+        final Map<String, String> parameters = new HashMap<String, String>();
+        for (final String name : properties.stringPropertyNames()) {
+            parameters.put(name, properties.getProperty(name));
+        }
+        return parameters.isEmpty() ? null : parameters;
+    }
+
+    public void store(final int world, final int revision, final Map<String, String> parameters) throws IOException {
+        if (parameters.isEmpty()) {
+            return;
+        }
+        final Properties properties = new Properties();
+        properties.putAll(parameters);
+        final File parameterFile = getParameterFile(world, revision);
+        final File temporaryFile = new File(directory, parameterFile.getName() + ".tmp");
+        final OutputStream stream = new FileOutputStream(temporaryFile);
+        try {
+            properties.store(stream, "Applet parameters for world " + world + " and revision " + revision);
+        } finally {
+            stream.close();
+        }
+        FileUtility.replace(temporaryFile, parameterFile);
+        evictExcept(world, revision);
+    }
+
+    private void evictExcept(final int world, final int revision) {
+        final File[] parameterFiles = directory.listFiles();
+        if (parameterFiles == null) {
+            return;
+        }
+        final String keptName = getParameterFile(world, revision).getName();
+        for (final File parameterFile : parameterFiles) {
+            final String name = parameterFile.getName();
+            if ((name.startsWith("world" + world + "-") || name.equals("world" + world + ".properties"))
+                    && name.endsWith(".properties")
+                    && !name.equals(keptName)
+                    && !parameterFile.delete()) {
+                System.err.println("Could not evict the cached parameters " + parameterFile + '.');
+            }
+        }
+    }
+
+    private File getParameterFile(final int world, final int revision) {
+        return new File(directory, "world" + world + "-" + revision + ".properties");
+    }
+}
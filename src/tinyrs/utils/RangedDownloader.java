@@ -0,0 +1,401 @@
+package tinyrs.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class RangedDownloader {
+
+    private static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+    private static final int CHUNK_ATTEMPTS = 3;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private final URL address;
+    private final File destinationFile;
+    private final File partialFile;
+    private final File stateFile;
+    private final int connectionCount;
+    private final int chunkSize;
+
+    public RangedDownloader(
+            final URL address,
+            final File destinationFile,
+            final int connectionCount,
+            final int chunkSize) {
+        if (connectionCount < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("The connection count and chunk size must be positive.");
+        }
+        this.address = address;
+        this.destinationFile = destinationFile;
+        this.partialFile = new File(destinationFile.getParentFile(), destinationFile.getName() + ".part");
+        this.stateFile = new File(destinationFile.getParentFile(), destinationFile.getName() + ".state");
+        this.connectionCount = connectionCount;
+        this.chunkSize = chunkSize;
+    }
+
+    public RangedDownloader(final URL address, final File destinationFile, final int connectionCount) {
+        this(address, destinationFile, connectionCount, DEFAULT_CHUNK_SIZE);
+    }
+
+    public void download(final Listener listener) throws IOException {
+        final URLConnection headConnection = openConnection();
+        long contentLength = -1;
+        boolean acceptsRanges = false;
+        String validator = null;
+        if (headConnection instanceof HttpURLConnection) {
+            final HttpURLConnection httpConnection = (HttpURLConnection) headConnection;
+            httpConnection.setRequestMethod("HEAD");
+            try {
+                if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                    contentLength = parseLength(httpConnection.getHeaderField("Content-Length"));
+                    acceptsRanges = "bytes".equalsIgnoreCase(httpConnection.getHeaderField("Accept-Ranges"));
+                    validator = getValidator(httpConnection);
+                }
+            } finally {
+                httpConnection.disconnect();
+            }
+        }
+        if (acceptsRanges && contentLength > 0) {
+            try {
+                downloadRanges(contentLength, validator, listener);
+                return;
+            } catch (final RangeNotSupportedException e) {
+                System.err.println("The server did not honor the requested range. Downloading in one piece...");
+            }
+        }
+        deletePartialDownload();
+        downloadSingleStream(listener);
+    }
+
+    private void downloadSingleStream(final Listener listener) throws IOException {
+        final URLConnection connection = openConnection();
+        final long contentLength = parseLength(connection.getHeaderField("Content-Length"));
+        listener.onStart(contentLength, 0);
+        final File temporaryFile = File.createTempFile(
+                destinationFile.getName(),
+                ".tmp",
+                destinationFile.getParentFile());
+        try {
+            final InputStream stream = connection.getInputStream();
+            try {
+                final FileOutputStream fileStream = new FileOutputStream(temporaryFile);
+                try {
+                    final FileChannel fileChannel = fileStream.getChannel();
+                    StreamUtility.transfer(stream, fileChannel, listener);
+                    fileChannel.force(true);
+                } finally {
+                    fileStream.close();
+                }
+            } finally {
+                stream.close();
+            }
+            FileUtility.replace(temporaryFile, destinationFile);
+        } finally {
+            if (temporaryFile.exists() && !temporaryFile.delete()) {
+                temporaryFile.deleteOnExit();
+            }
+        }
+    }
+
+    private void downloadRanges(final long contentLength, final String validator, final Listener listener)
+            throws IOException {
+        final int chunkCount = (int) ((contentLength + chunkSize - 1) / chunkSize);
+        final DownloadState state = DownloadState.read(stateFile);
+        final BitSet completedChunks;
+        if (state != null
+                && state.matches(contentLength, chunkSize, validator)
+                && partialFile.length() == contentLength) {
+            completedChunks = state.completedChunks;
+        } else {
+            completedChunks = new BitSet(chunkCount);
+            if (stateFile.exists() && !stateFile.delete()) {
+                throw new IOException("Could not delete the stale download state.");
+            }
+        }
+        long completedBytes = 0;
+        final Queue<Integer> remainingChunks = new ConcurrentLinkedQueue<Integer>();
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            if (completedChunks.get(chunk)) {
+                completedBytes += chunkLength(chunk, contentLength);
+            } else {
+                remainingChunks.add(chunk);
+            }
+        }
+        listener.onStart(contentLength, completedBytes);
+        final RandomAccessFile partialAccess = new RandomAccessFile(partialFile, "rw");
+        try {
+            partialAccess.setLength(contentLength);
+            final FileChannel partialChannel = partialAccess.getChannel();
+            final DownloadState newState = new DownloadState(contentLength, chunkSize, validator, completedChunks);
+            final AtomicBoolean failed = new AtomicBoolean();
+            final int workerCount = Math.min(connectionCount, Math.max(1, remainingChunks.size()));
+            final ExecutorService executor = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "Ranged Download");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            try {
+                final List<Future<Void>> workers = new ArrayList<Future<Void>>(workerCount);
+                for (int i = 0; i < workerCount; i++) {
+                    workers.add(executor.submit(new Callable<Void>() {
+
+                        @Override
+                        public Void call() throws Exception {
+                            Integer chunk;
+                            while (!failed.get() && (chunk = remainingChunks.poll()) != null) {
+                                try {
+                                    downloadChunk(chunk, contentLength, validator, partialChannel, listener);
+                                    synchronized (newState) {
+                                        partialChannel.force(false);
+                                        newState.completedChunks.set(chunk);
+                                        newState.write(stateFile);
+                                    }
+                                } catch (final Exception e) {
+                                    failed.set(true);
+                                    throw e;
+                                }
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (final Future<Void> worker : workers) {
+                    try {
+                        worker.get();
+                    } catch (final InterruptedException e) {
+                        throw new IOException("The download was interrupted.", e);
+                    } catch (final ExecutionException e) {
+                        final Throwable cause = e.getCause();
+                        if (cause instanceof IOException) {
+                            throw (IOException) cause;
+                        }
+                        throw new IOException("Failed to download a chunk.", cause);
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            partialChannel.force(true);
+        } finally {
+            partialAccess.close();
+        }
+        FileUtility.replace(partialFile, destinationFile);
+        if (!stateFile.delete()) {
+            stateFile.deleteOnExit();
+        }
+    }
+
+    private void downloadChunk(
+            final int chunk,
+            final long contentLength,
+            final String validator,
+            final FileChannel destination,
+            final Listener listener) throws IOException {
+        final long start = (long) chunk * chunkSize;
+        final long length = chunkLength(chunk, contentLength);
+        IOException lastFailure = null;
+        for (int attempt = 0; attempt < CHUNK_ATTEMPTS; attempt++) {
+            final HttpURLConnection connection = (HttpURLConnection) openConnection();
+            connection.setRequestProperty("Range", "bytes=" + start + '-' + (start + length - 1));
+            if (validator != null) {
+                connection.setRequestProperty("If-Range", validator);
+            }
+            long position = start;
+            try {
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                    throw new RangeNotSupportedException();
+                }
+                final InputStream stream = connection.getInputStream();
+                try {
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    int bytesRead;
+                    while (position < start + length && (bytesRead = stream.read(buffer)) != -1) {
+                        final ByteBuffer byteBuffer = ByteBuffer.wrap(
+                                buffer,
+                                0,
+                                (int) Math.min(bytesRead, start + length - position));
+                        while (byteBuffer.hasRemaining()) {
+                            position += destination.write(byteBuffer, position);
+                        }
+                    }
+                } finally {
+                    stream.close();
+                }
+                if (position != start + length) {
+                    throw new IOException("The chunk at offset " + start + " ended prematurely.");
+                }
+                listener.onBytesRead((int) length);
+                return;
+            } catch (final RangeNotSupportedException e) {
+                throw e;
+            } catch (final IOException e) {
+                lastFailure = e;
+            } finally {
+                connection.disconnect();
+            }
+        }
+        throw lastFailure;
+    }
+
+    private void deletePartialDownload() {
+        if (partialFile.exists() && !partialFile.delete()) {
+            partialFile.deleteOnExit();
+        }
+        if (stateFile.exists() && !stateFile.delete()) {
+            stateFile.deleteOnExit();
+        }
+    }
+
+    private long chunkLength(final int chunk, final long contentLength) {
+        return Math.min(chunkSize, contentLength - (long) chunk * chunkSize);
+    }
+
+    private URLConnection openConnection() throws IOException {
+        final URLConnection connection = address.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setUseCaches(false);
+        return connection;
+    }
+
+    private static String getValidator(final URLConnection connection) {
+        final String entityTag = connection.getHeaderField("ETag");
+        if (entityTag != null && !entityTag.startsWith("W/")) {
+            return entityTag;
+        }
+        return connection.getHeaderField("Last-Modified");
+    }
+
+    private static long parseLength(final String length) {
+        if (length == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(length.trim());
+        } catch (final NumberFormatException expected) {
+            return -1;
+        }
+    }
+
+    public interface Listener extends StreamUtility.ProgressListener {
+
+        void onStart(long contentLength, long completedBytes);
+    }
+
+    private static final class RangeNotSupportedException extends IOException {
+
+        private RangeNotSupportedException() {
+            super("The server did not honor the requested range.");
+        }
+    }
+
+    private static final class DownloadState {
+
+        private final long contentLength;
+        private final int chunkSize;
+        private final String validator;
+        private final BitSet completedChunks;
+
+        private DownloadState(
+                final long contentLength,
+                final int chunkSize,
+                final String validator,
+                final BitSet completedChunks) {
+            this.contentLength = contentLength;
+            this.chunkSize = chunkSize;
+            this.validator = validator;
+            this.completedChunks = completedChunks;
+        }
+
+        private boolean matches(final long contentLength, final int chunkSize, final String validator) {
+            return validator != null
+                    && validator.equals(this.validator)
+                    && contentLength == this.contentLength
+                    && chunkSize == this.chunkSize;
+        }
+
+        private void write(final File stateFile) throws IOException {
+            final Properties properties = new Properties();
+            properties.setProperty("contentLength", Long.toString(contentLength));
+            properties.setProperty("chunkSize", Integer.toString(chunkSize));
+            if (validator != null) {
+                properties.setProperty("validator", validator);
+            }
+            final StringBuilder chunks = new StringBuilder();
+            int chunk = completedChunks.nextSetBit(0);
+            while (chunk >= 0) {
+                if (chunks.length() > 0) {
+                    chunks.append(',');
+                }
+                chunks.append(chunk);
+                chunk = completedChunks.nextSetBit(chunk + 1);
+            }
+            properties.setProperty("completedChunks", chunks.toString());
+            final File temporaryFile = new File(stateFile.getParentFile(), stateFile.getName() + ".tmp");
+            final OutputStream stream = new FileOutputStream(temporaryFile);
+            try {
+                properties.store(stream, null);
+            } finally {
+                stream.close();
+            }
+            FileUtility.replace(temporaryFile, stateFile);
+        }
+
+        private static DownloadState read(final File stateFile) {
+            if (!stateFile.exists()) {
+                return null;
+            }
+            final Properties properties = new Properties();
+            try {
+                final InputStream stream = new FileInputStream(stateFile);
+                try {
+                    properties.load(stream);
+                } finally {
+                    stream.close();
+                }
+                final BitSet completedChunks = new BitSet();
+                final String chunks = properties.getProperty("completedChunks", "");
+                if (!chunks.isEmpty()) {
+                    for (final String chunk : chunks.split(",")) {
+                        completedChunks.set(Integer.parseInt(chunk));
+                    }
+                }
+                return new DownloadState(
+                        Long.parseLong(properties.getProperty("contentLength")),
+                        Integer.parseInt(properties.getProperty("chunkSize")),
+                        properties.getProperty("validator"),
+                        completedChunks);
+            } catch (final Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package tinyrs.utils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+public final class StartupTimeline {
+
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final String FILE_NAME_FORMAT = "'startup-'yyyyMMdd-HHmmss-SSS'.tsv'";
+    private static final String FILE_NAME_PREFIX = "startup-";
+    private static final String FILE_NAME_SUFFIX = ".tsv";
+    private static final int RETAINED_TIMELINES = 10;
+    private static final List<Phase> phases = new ArrayList<Phase>();
+
+    private StartupTimeline() {
+    }
+
+    public static Phase begin(final String name) {
+        final Phase phase = new Phase(name, System.nanoTime() - ORIGIN_NANOS);
+        synchronized (phases) {
+            phases.add(phase);
+        }
+        return phase;
+    }
+
+    public static List<Phase> phases() {
+        synchronized (phases) {
+            return new ArrayList<Phase>(phases);
+        }
+    }
+
+    public static String format() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "%-24s %10s %10s%n", "Phase", "Start (ms)", "Time (ms)"));
+        builder.append(String.format(Locale.ROOT, "%-24s %10.1f %10s%n", "jvm", toMillis(jvmStartNanos()), "-"));
+        for (final Phase phase : phases()) {
+            builder.append(String.format(
+                    Locale.ROOT,
+                    "%-24s %10.1f %10s%n",
+                    phase.name(),
+                    toMillis(phase.startNanos()),
+                    phase.isEnded() ? String.format(Locale.ROOT, "%.1f", toMillis(phase.durationNanos())) : "-"));
+        }
+        return builder.toString();
+    }
+
+    public static File write(final File timelineDirectory) throws IOException {
+        if (!timelineDirectory.isDirectory() && !timelineDirectory.mkdirs()) {
+            throw new IOException("Could not create the startup timeline directory.");
+        }
+        final File timelineFile =
+                new File(timelineDirectory, new SimpleDateFormat(FILE_NAME_FORMAT, Locale.ROOT).format(new Date()));
+        final File temporaryFile = new File(timelineDirectory, timelineFile.getName() + ".tmp");
+        final PrintWriter printWriter =
+                new PrintWriter(new OutputStreamWriter(new FileOutputStream(temporaryFile), "UTF-8"));
+        try {
+            printWriter.println("phase\tstart_us\tduration_us");
+            printWriter.println("jvm\t" + TimeUnit.NANOSECONDS.toMicros(jvmStartNanos()) + "\t-1");
+            for (final Phase phase : phases()) {
+                printWriter.println(phase.name()
+                        + '\t' + TimeUnit.NANOSECONDS.toMicros(phase.startNanos())
+                        + '\t' + (phase.isEnded() ? TimeUnit.NANOSECONDS.toMicros(phase.durationNanos()) : -1));
+            }
+            printWriter.flush();
+            if (printWriter.checkError()) {
+                throw new IOException("Could not write the startup timeline.");
+            }
+        } finally {
+            printWriter.close();
+        }
+        FileUtility.replace(temporaryFile, timelineFile);
+        deleteOldTimelines(timelineDirectory);
+        return timelineFile;
+    }
+
+    private static void deleteOldTimelines(final File timelineDirectory) {
+        final File[] timelineFiles = timelineDirectory.listFiles(new FileFilter() {
+
+            @Override
+            public boolean accept(final File file) {
+                return file.isFile()
+                        && file.getName().startsWith(FILE_NAME_PREFIX)
+                        && file.getName().endsWith(FILE_NAME_SUFFIX);
+            }
+        });
+        if (timelineFiles == null || timelineFiles.length <= RETAINED_TIMELINES) {
+            return;
+        }
+        Arrays.sort(timelineFiles);
+        for (int i = 0; i < timelineFiles.length - RETAINED_TIMELINES; i++) {
+            if (!timelineFiles[i].delete()) {
+                System.err.println("Could not delete the old startup timeline " + timelineFiles[i].getName() + '.');
+            }
+        }
+    }
+
+    private static long jvmStartNanos() {
+        final long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        return System.nanoTime() - ORIGIN_NANOS - TimeUnit.MILLISECONDS.toNanos(uptimeMillis);
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / 1e6;
+    }
+
+    public static final class Phase {
+
+        private final String name;
+        private final long startNanos;
+        private volatile long endNanos = -1;
+
+        private Phase(final String name, final long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        public void end() {
+            if (endNanos == -1) {
+                endNanos = System.nanoTime() - ORIGIN_NANOS;
+            }
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long startNanos() {
+            return startNanos;
+        }
+
+        public boolean isEnded() {
+            return endNanos != -1;
+        }
+
+        public long durationNanos() {
+            return isEnded() ? endNanos - startNanos : System.nanoTime() - ORIGIN_NANOS - startNanos;
+        }
+    }
+}
@@ -3,9 +3,15 @@ package tinyrs.utils;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 public final class StreamUtility {
 
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
     private StreamUtility() {
     }
 
@@ -27,6 +33,83 @@ public final class StreamUtility {
         return readBytes(stream, null);
     }
 
+    public static long transfer(
+            final InputStream stream,
+            final WritableByteChannel destination,
+            final ProgressListener progressListener) throws IOException {
+        final ReadableByteChannel source = Channels.newChannel(stream);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE);
+        long totalBytesTransferred = 0;
+        int bytesRead;
+        while ((bytesRead = source.read(buffer)) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                destination.write(buffer);
+            }
+            buffer.clear();
+            totalBytesTransferred += bytesRead;
+            if (bytesRead > 0 && progressListener != null) {
+                progressListener.onBytesRead(bytesRead);
+            }
+        }
+        return totalBytesTransferred;
+    }
+
+    public static long transfer(final InputStream stream, final WritableByteChannel destination)
+            throws IOException {
+        return transfer(stream, destination, null);
+    }
+
+    public static boolean skipPast(final InputStream stream, final byte[] pattern) throws IOException {
+        if (pattern.length == 0) {
+            return true;
+        }
+        final int[] fallback = createFallbackTable(pattern);
+        int matched = 0;
+        int nextByte;
+        while ((nextByte = stream.read()) != -1) {
+            final byte currentByte = (byte) nextByte;
+            while (matched > 0 && currentByte != pattern[matched]) {
+                matched = fallback[matched - 1];
+            }
+            if (currentByte == pattern[matched] && ++matched == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static int indexOf(final byte[] source, final byte[] pattern) {
+        if (pattern.length == 0) {
+            return 0;
+        }
+        final int[] fallback = createFallbackTable(pattern);
+        int matched = 0;
+        for (int i = 0; i < source.length; i++) {
+            while (matched > 0 && source[i] != pattern[matched]) {
+                matched = fallback[matched - 1];
+            }
+            if (source[i] == pattern[matched] && ++matched == pattern.length) {
+                return i - pattern.length + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] createFallbackTable(final byte[] pattern) {
+        final int[] fallback = new int[pattern.length];
+        for (int i = 1, matched = 0; i < pattern.length; i++) {
+            while (matched > 0 && pattern[i] != pattern[matched]) {
+                matched = fallback[matched - 1];
+            }
+            if (pattern[i] == pattern[matched]) {
+                matched++;
+            }
+            fallback[i] = matched;
+        }
+        return fallback;
+    }
+
     public interface ProgressListener {
 
         void onBytesRead(int amount);
@@ -0,0 +1,72 @@
+package tinyrs.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+public final class ThreadUtility {
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static final boolean cpuTimeEnabled = enableCpuTime();
+    private static final Method allocatedBytesMethod = findAllocatedBytesMethod();
+
+    private ThreadUtility() {
+    }
+
+    public static boolean isCpuTimeSupported() {
+        return cpuTimeEnabled;
+    }
+
+    public static boolean isAllocatedBytesSupported() {
+        return allocatedBytesMethod != null;
+    }
+
+    public static long currentThreadCpuTime() {
+        return cpuTimeEnabled ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    public static long currentThreadAllocatedBytes() {
+        if (allocatedBytesMethod == null) {
+            return -1;
+        }
+        try {
+            return (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+        } catch (final Exception e) {
+            return -1;
+        }
+    }
+
+    private static boolean enableCpuTime() {
+        if (!threadBean.isCurrentThreadCpuTimeSupported()) {
+            return false;
+        }
+        try {
+            if (!threadBean.isThreadCpuTimeEnabled()) {
+                threadBean.setThreadCpuTimeEnabled(true);
+            }
+            return true;
+        } catch (final SecurityException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static Method findAllocatedBytesMethod() {
+        try {
+            final Class<?> extendedBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (!extendedBeanClass.isInstance(threadBean)
+                    || !(Boolean) extendedBeanClass.getMethod("isThreadAllocatedMemorySupported").invoke(threadBean)) {
+                return null;
+            }
+            if (!(Boolean) extendedBeanClass.getMethod("isThreadAllocatedMemoryEnabled").invoke(threadBean)) {
+                extendedBeanClass.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(threadBean, true);
+            }
+            return extendedBeanClass.getMethod("getThreadAllocatedBytes", long.class);
+        } catch (final ClassNotFoundException expected) {
+            return null;
+        } catch (final Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
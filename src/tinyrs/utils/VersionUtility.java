@@ -1,10 +1,11 @@
 package tinyrs.utils;
 
+import java.io.BufferedInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.Collections;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -13,31 +14,39 @@ import tinyrs.GlobalProperty;
 public final class VersionUtility {
 
     private static final byte[] REVISION_NUMBER_PATTERN = { 17, 2, -3, 17, 1, -9, 17 };
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
 
     private VersionUtility() {
     }
 
     public static int getRevision(final JarFile gamepack) throws IOException {
-        for (final JarEntry entry : Collections.list(gamepack.entries())) {
-            if (!"client.class".equals(entry.getName())) {
-                continue;
+        final JarEntry clientEntry = gamepack.getJarEntry("client.class");
+        if (clientEntry == null) {
+            return -1;
+        }
+        final InputStream classStream = new BufferedInputStream(gamepack.getInputStream(clientEntry));
+        try {
+            if (!StreamUtility.skipPast(classStream, REVISION_NUMBER_PATTERN)) {
+                return -1;
             }
-            final byte[] classBytes = StreamUtility.readBytes(gamepack.getInputStream(entry));
-            final int patternIndex = indexOfSubArray(classBytes, REVISION_NUMBER_PATTERN);
-            if (patternIndex == -1) {
+            final int highByte = classStream.read();
+            final int lowByte = classStream.read();
+            if (highByte == -1 || lowByte == -1) {
                 return -1;
             }
-            final int revisionIndex = patternIndex + REVISION_NUMBER_PATTERN.length;
-            return classBytes[revisionIndex] << 8 | classBytes[revisionIndex + 1] & 0xff;
+            return (byte) highByte << 8 | lowByte;
+        } finally {
+            classStream.close();
         }
-        return -1;
     }
 
     public static boolean isLatestRevision(final int revision) throws IOException {
         final Socket socket = new Socket();
         try {
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
             socket.connect(new InetSocketAddress(
-                    AppletUtility.getHostForWorld(GlobalProperty.DEFAULT_WORLD.getDefault(int.class)), 43594));
+                    AppletUtility.getHostForWorld(GlobalProperty.DEFAULT_WORLD.getDefault(int.class)),
+                    AppletUtility.GAME_PORT), HANDSHAKE_TIMEOUT_MILLIS);
             final DataOutputStream socketStream = new DataOutputStream(socket.getOutputStream());
             socketStream.write(15);
             socketStream.writeInt(revision);
@@ -47,18 +56,4 @@ public final class VersionUtility {
             socket.close();
         }
     }
-
-    private static int indexOfSubArray(final byte[] source, final byte[] target) {
-        final int sourceLength = source.length;
-        final int patternLength = target.length;
-        sourceLoop: for (int i = 0; i < sourceLength; i++) {
-            for (int j = 0; j < patternLength; j++) {
-                if (source[i + j] != target[j]) {
-                    continue sourceLoop;
-                }
-            }
-            return i;
-        }
-        return -1;
-    }
 }
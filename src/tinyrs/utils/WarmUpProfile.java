@@ -0,0 +1,60 @@
+package tinyrs.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+public final class WarmUpProfile {
+
+    private WarmUpProfile() {
+    }
+
+    public static File getProfileFile(final File profileDirectory, final File gamepackFile) {
+        return new File(profileDirectory, gamepackFile.getName().replaceFirst("\\.jar$", "") + ".txt");
+    }
+
+    public static List<String> read(final File profileFile) throws IOException {
+        final List<String> classNames = new ArrayList<String>();
+        final Scanner scanner = new Scanner(new InputStreamReader(new FileInputStream(profileFile), "UTF-8"));
+        try {
+            while (scanner.hasNextLine()) {
+                final String className = scanner.nextLine().trim();
+                if (!className.isEmpty()) {
+                    classNames.add(className);
+                }
+            }
+        } finally {
+            scanner.close();
+        }
+        return classNames;
+    }
+
+    public static void write(final File profileFile, final List<String> classNames) throws IOException {
+        final File profileDirectory = profileFile.getParentFile();
+        if (!profileDirectory.isDirectory() && !profileDirectory.mkdirs()) {
+            throw new IOException("Could not create the warm-up profile directory.");
+        }
+        final File temporaryFile = new File(profileDirectory, profileFile.getName() + ".tmp");
+        final PrintWriter printWriter =
+                new PrintWriter(new OutputStreamWriter(new FileOutputStream(temporaryFile), "UTF-8"));
+        try {
+            for (final String className : classNames) {
+                printWriter.println(className);
+            }
+            printWriter.flush();
+            if (printWriter.checkError()) {
+                throw new IOException("Could not write the warm-up profile.");
+            }
+        } finally {
+            printWriter.close();
+        }
+        FileUtility.replace(temporaryFile, profileFile);
+    }
+}
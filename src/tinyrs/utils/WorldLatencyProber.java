@@ -0,0 +1,204 @@
+package tinyrs.utils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class WorldLatencyProber {
+
+    public static final long FAILED_PROBE = -1;
+    private final ConcurrentMap<Integer, LatencyStatistics> statistics =
+            new ConcurrentHashMap<Integer, LatencyStatistics>();
+    private final ExecutorService probers;
+    private final int timeoutMillis;
+
+    public WorldLatencyProber(final int concurrency, final int timeoutMillis) {
+        if (concurrency < 1 || timeoutMillis < 1) {
+            throw new IllegalArgumentException("The concurrency and timeout must be positive.");
+        }
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                concurrency,
+                concurrency,
+                30,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "World Latency Prober");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        probers = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public Future<Long> probe(final int world) {
+        return probers.submit(new Callable<Long>() {
+
+            @Override
+            public Long call() {
+                final long latencyNanos = measureConnectTime(getAddress(world));
+                getStatistics(world).record(latencyNanos);
+                return latencyNanos;
+            }
+        });
+    }
+
+    public Map<Integer, Future<Long>> probeAll(final Collection<Integer> worlds) {
+        final Map<Integer, Future<Long>> results = new LinkedHashMap<Integer, Future<Long>>();
+        for (final Integer world : worlds) {
+            results.put(world, probe(world));
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    public int selectFastestWorld(
+            final WorldRegistry worldRegistry,
+            final Collection<Integer> worlds,
+            final long deadlineMillis) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        final Map<Integer, Future<Boolean>> resolutions = new LinkedHashMap<Integer, Future<Boolean>>();
+        for (final Integer world : worlds) {
+            resolutions.put(world, worldRegistry.resolve(world));
+        }
+        final Map<Integer, Future<Long>> probes = new LinkedHashMap<Integer, Future<Long>>();
+        for (final Map.Entry<Integer, Future<Boolean>> resolution : resolutions.entrySet()) {
+            if (Boolean.TRUE.equals(getBefore(resolution.getValue(), deadline))) {
+                probes.put(resolution.getKey(), probe(resolution.getKey()));
+            }
+        }
+        for (final Future<Long> probe : probes.values()) {
+            getBefore(probe, deadline);
+        }
+        return fastestWorld(probes.keySet());
+    }
+
+    public int fastestWorld(final Collection<Integer> worlds) {
+        int fastestWorld = -1;
+        long fastestNanos = Long.MAX_VALUE;
+        for (final Integer world : worlds) {
+            final LatencyStatistics worldStatistics = statistics.get(world);
+            if (worldStatistics == null) {
+                continue;
+            }
+            final long averageNanos = worldStatistics.getAverageNanos();
+            if (averageNanos != FAILED_PROBE && averageNanos < fastestNanos) {
+                fastestWorld = world;
+                fastestNanos = averageNanos;
+            }
+        }
+        return fastestWorld;
+    }
+
+    public LatencyStatistics getStatistics(final int world) {
+        final LatencyStatistics worldStatistics = statistics.get(world);
+        if (worldStatistics != null) {
+            return worldStatistics;
+        }
+        final LatencyStatistics newStatistics = new LatencyStatistics();
+        final LatencyStatistics existingStatistics = statistics.putIfAbsent(world, newStatistics);
+        return existingStatistics == null ? newStatistics : existingStatistics;
+    }
+
+    public void shutdown() {
+        probers.shutdownNow();
+    }
+
+    protected InetSocketAddress getAddress(final int world) {
+        return new InetSocketAddress(AppletUtility.getHostForWorld(world), AppletUtility.GAME_PORT);
+    }
+
+    private long measureConnectTime(final InetSocketAddress address) {
+        if (address.isUnresolved()) {
+            return FAILED_PROBE;
+        }
+        final Socket socket = new Socket();
+        try {
+            final long startTime = System.nanoTime();
+            socket.connect(address, timeoutMillis);
+            return System.nanoTime() - startTime;
+        } catch (final IOException expected) {
+            return FAILED_PROBE;
+        } finally {
+            try {
+                socket.close();
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+
+    private static <T> T getBefore(final Future<T> future, final long deadline) throws InterruptedException {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (final ExecutionException e) {
+            e.printStackTrace();
+            return null;
+        } catch (final TimeoutException expected) {
+            return null;
+        }
+    }
+
+    public static final class LatencyStatistics {
+
+        private static final double SMOOTHING_FACTOR = 0.25;
+        private int samples;
+        private int failures;
+        private long lastNanos = FAILED_PROBE;
+        private long minimumNanos = FAILED_PROBE;
+        private double averageNanos = FAILED_PROBE;
+
+        private synchronized void record(final long latencyNanos) {
+            lastNanos = latencyNanos;
+            if (latencyNanos == FAILED_PROBE) {
+                failures++;
+                return;
+            }
+            if (samples++ == 0) {
+                minimumNanos = latencyNanos;
+                averageNanos = latencyNanos;
+            } else {
+                minimumNanos = Math.min(minimumNanos, latencyNanos);
+                averageNanos += SMOOTHING_FACTOR * (latencyNanos - averageNanos);
+            }
+        }
+
+        public synchronized int getSamples() {
+            return samples;
+        }
+
+        public synchronized int getFailures() {
+            return failures;
+        }
+
+        public synchronized long getLastNanos() {
+            return lastNanos;
+        }
+
+        public synchronized long getMinimumNanos() {
+            return minimumNanos;
+        }
+
+        public synchronized long getAverageNanos() {
+            return (long) averageNanos;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package tinyrs.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public final class WorldRegistry {
+
+    private static final long POSITIVE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long NEGATIVE_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int RESOLVER_THREADS = 8;
+    private static final String WORLD_LIST_ADDRESS = "http://www.runescape.com/g=oldschool/slr.ws?order=LPWM";
+    private static final int WORLD_ID_OFFSET = 300;
+    private static final int MEMBERS_WORLD = 1;
+    private static final int RESTRICTED_WORLD = 1 << 2 | 1 << 5 | 1 << 6 | 1 << 7 | 1 << 8 | 1 << 10 | 1 << 14
+            | 1 << 16 | 1 << 25 | 1 << 26 | 1 << 27 | 1 << 29 | 1 << 30;
+    private final ConcurrentMap<Integer, Resolution> resolutions = new ConcurrentHashMap<Integer, Resolution>();
+    private final ExecutorService resolvers;
+
+    public WorldRegistry() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                RESOLVER_THREADS,
+                RESOLVER_THREADS,
+                30,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "World Resolver");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        resolvers = executor;
+    }
+
+    public Future<Boolean> resolve(final int world) {
+        return resolve(world, null);
+    }
+
+    public Future<Boolean> resolve(final int world, final ResolutionListener listener) {
+        while (true) {
+            final Resolution existingResolution = resolutions.get(world);
+            if (existingResolution != null && !existingResolution.isExpired()) {
+                if (listener != null) {
+                    existingResolution.addListener(listener);
+                }
+                return existingResolution;
+            }
+            final Resolution resolution = new Resolution(world);
+            if (listener != null) {
+                resolution.addListener(listener);
+            }
+            final boolean added = existingResolution == null
+                    ? resolutions.putIfAbsent(world, resolution) == null
+                    : resolutions.replace(world, existingResolution, resolution);
+            if (added) {
+                resolvers.execute(resolution);
+                return resolution;
+            }
+        }
+    }
+
+    public Map<Integer, Future<Boolean>> resolveAll(final int firstWorld, final int lastWorld) {
+        final Map<Integer, Future<Boolean>> results = new LinkedHashMap<Integer, Future<Boolean>>();
+        for (int world = firstWorld; world <= lastWorld; world++) {
+            results.put(world, resolve(world));
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    public List<Integer> fetchWorlds(final boolean includeMembers, final int timeoutMillis) throws IOException {
+        final URLConnection connection = new URL(WORLD_LIST_ADDRESS).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        final DataInputStream listStream = new DataInputStream(connection.getInputStream());
+        try {
+            listStream.readInt();
+            final int worldCount = listStream.readUnsignedShort();
+            final List<Integer> worlds = new ArrayList<Integer>(worldCount);
+            for (int i = 0; i < worldCount; i++) {
+                final int world = listStream.readUnsignedShort() - WORLD_ID_OFFSET;
+                final int flags = listStream.readInt();
+                final String host = readString(listStream);
+                readString(listStream);
+                listStream.readUnsignedByte();
+                final int playerCount = listStream.readShort();
+                if (playerCount >= 0
+                        && (flags & RESTRICTED_WORLD) == 0
+                        && (includeMembers || (flags & MEMBERS_WORLD) == 0)
+                        && host.equals(AppletUtility.getHostForWorld(world))) {
+                    worlds.add(world);
+                }
+            }
+            return worlds;
+        } finally {
+            listStream.close();
+        }
+    }
+
+    public Boolean getCached(final int world) {
+        final Resolution resolution = resolutions.get(world);
+        if (resolution == null || !resolution.isResolved() || resolution.isExpired()) {
+            return null;
+        }
+        return resolution.valid;
+    }
+
+    private static String readString(final DataInputStream stream) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int character;
+        while ((character = stream.readUnsignedByte()) != 0) {
+            bytes.write(character);
+        }
+        return bytes.toString("ISO-8859-1");
+    }
+
+    public interface ResolutionListener {
+
+        void onResolved(int world, boolean valid);
+    }
+
+    private static final class Resolution extends FutureTask<Boolean> {
+
+        private final int world;
+        private ResolutionListener[] listeners = new ResolutionListener[0];
+        private volatile boolean valid;
+        private volatile long expiryTime = Long.MAX_VALUE;
+
+        private Resolution(final int world) {
+            super(new Callable<Boolean>() {
+
+                @Override
+                public Boolean call() {
+                    try {
+                        InetAddress.getByName(AppletUtility.getHostForWorld(world));
+                        return true;
+                    } catch (final UnknownHostException expected) {
+                        return false;
+                    }
+                }
+            });
+            this.world = world;
+        }
+
+        private boolean isResolved() {
+            return expiryTime != Long.MAX_VALUE;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiryTime;
+        }
+
+        private void addListener(final ResolutionListener listener) {
+            synchronized (this) {
+                if (listeners != null) {
+                    final ResolutionListener[] newListeners = new ResolutionListener[listeners.length + 1];
+                    System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+                    newListeners[listeners.length] = listener;
+                    listeners = newListeners;
+                    return;
+                }
+            }
+            listener.onResolved(world, valid);
+        }
+
+        @Override
+        protected void done() {
+            boolean resolvedValid;
+            try {
+                resolvedValid = !isCancelled() && get();
+            } catch (final Exception e) {
+                e.printStackTrace();
+                resolvedValid = false;
+            }
+            final ResolutionListener[] notifiedListeners;
+            synchronized (this) {
+                valid = resolvedValid;
+                expiryTime = System.currentTimeMillis() + (resolvedValid ? POSITIVE_TTL_MILLIS : NEGATIVE_TTL_MILLIS);
+                notifiedListeners = listeners;
+                listeners = null;
+            }
+            for (final ResolutionListener listener : notifiedListeners) {
+                listener.onResolved(world, resolvedValid);
+            }
+        }
+    }
+}